@@ -1,5 +1,7 @@
 package com.hedgecourt.auth.api;
 
+import com.hedgecourt.spring.lib.security.HcAuthProblemHandler;
+import com.hedgecourt.spring.lib.security.HcJwtAuthenticationConverter;
 import com.hedgecourt.spring.lib.service.HcPublicPathsMatcherService;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
@@ -23,7 +25,6 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -32,7 +33,8 @@ import org.springframework.web.filter.ForwardedHeaderFilter;
 
 @Configuration
 @EnableWebSecurity
-@EnableMethodSecurity(securedEnabled = true)
+// @Secured is enforced by HcSecurityConfiguration's HcSecuredAuthorizationManager
+@EnableMethodSecurity
 public class HcAuthSecurityConfiguration {
 
   private static final Logger log = LoggerFactory.getLogger(HcAuthSecurityConfiguration.class);
@@ -95,15 +97,27 @@ public class HcAuthSecurityConfiguration {
                 sessionManagement.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
         .authenticationProvider(authenticationProvider());
 
+    // rejections are answered with pre-rendered problem bodies, see HcAuthProblem
+    HcAuthProblemHandler problemHandler = new HcAuthProblemHandler();
+    http.exceptionHandling(
+        exceptionHandling ->
+            exceptionHandling
+                .authenticationEntryPoint(problemHandler)
+                .accessDeniedHandler(problemHandler));
+
     http.oauth2ResourceServer(
-        oauth2 -> oauth2.jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter())));
+        oauth2 ->
+            oauth2
+                .authenticationEntryPoint(problemHandler)
+                .accessDeniedHandler(problemHandler)
+                .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter())));
 
     return http.build();
   }
 
   @Bean
-  public JwtAuthenticationConverter jwtAuthenticationConverter() {
-    JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+  public HcJwtAuthenticationConverter jwtAuthenticationConverter() {
+    HcJwtAuthenticationConverter converter = new HcJwtAuthenticationConverter();
     // TODO add custom claims or role mapping here if needed
     if (log.isInfoEnabled())
       log.info("setting up HC Auth jwt authentication converter: {}", converter);
@@ -38,7 +38,7 @@ public class AuthController {
     return LoginResponseDto.builder().token(jwtService.generateToken(authenticatedUser)).build();
   }
 
-  @HcPublicEndpoint
+  @HcPublicEndpoint(bypassFilterChain = true)
   @GetMapping("/.well-known/jwks.json")
   public JwksDto getWellKnownJwksJson() {
     if (log.isDebugEnabled()) log.debug("getWellKnownJwksJson()");
@@ -46,7 +46,7 @@ public class AuthController {
     return jwtService.getJwks();
   }
 
-  @HcPublicEndpoint
+  @HcPublicEndpoint(bypassFilterChain = true)
   @GetMapping("/.well-known/public.pem")
   public String getWellKnownPublicPem() {
     if (log.isDebugEnabled()) log.debug("getWellKnownPublicPem()");
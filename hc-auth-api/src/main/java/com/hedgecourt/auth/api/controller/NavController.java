@@ -1,21 +1,29 @@
 package com.hedgecourt.auth.api.controller;
 
 import com.hedgecourt.auth.api.dto.NavItemDto;
+import com.hedgecourt.auth.api.service.NavChangeFeed;
+import com.hedgecourt.auth.api.service.NavResponseCache;
 import com.hedgecourt.auth.api.service.NavService;
 import com.hedgecourt.spring.lib.annotation.HcPublicEndpoint;
+import com.hedgecourt.spring.lib.model.HcScopeSet;
+import com.hedgecourt.spring.lib.model.HcSerializedBody;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/nav")
@@ -23,36 +31,67 @@ public class NavController {
   private static final Logger log = LoggerFactory.getLogger(NavController.class);
 
   private final NavService navService;
+  private final NavResponseCache navResponseCache;
+  private final NavChangeFeed navChangeFeed;
 
-  NavController(NavService navService) {
+  NavController(
+      NavService navService, NavResponseCache navResponseCache, NavChangeFeed navChangeFeed) {
     this.navService = navService;
+    this.navResponseCache = navResponseCache;
+    this.navChangeFeed = navChangeFeed;
   }
 
   // Aggregate root
   // tag::get-aggregate-root[]
+
+  /**
+   * Serves the pre-rendered nav for the caller's audience. The body varies with the Authorization
+   * header, so it is only cacheable privately and has to be revalidated, which the ETag turns into
+   * a 304 while nav is unchanged.
+   */
   @GetMapping("")
   @HcPublicEndpoint
-  List<NavItemDto> list(Authentication auth) {
-    if (log.isDebugEnabled())
-      log.debug("navService.list() is auth null: {}", (auth == null ? "yes" : "no"));
+  ResponseEntity<byte[]> list(Authentication auth) {
     if (log.isDebugEnabled())
       log.debug("navService.list() authUser={}", (auth == null ? "null" : auth.getName()));
 
-    List<NavItemDto> navItems = navService.list();
-
-    // TODO implement anonymous nav list (instead of just top-level navs)
-    if (auth == null) {
-      if (log.isInfoEnabled()) log.info("null auth, filtering list by childOf==0");
-      return navItems.stream()
-          .filter(dto -> dto.getChildOf() == null || dto.getChildOf() == 0)
-          .collect(Collectors.toList());
-    } else {
-      return navItems;
-    }
+    HcSerializedBody body =
+        auth == null
+            ? navResponseCache.anonymous()
+            : navResponseCache.visibleTo(() -> scopesOf(auth));
+    return body.toResponseEntity(CacheControl.noCache().cachePrivate());
   }
 
   // end::get-aggregate-root[]
 
+  /**
+   * Same items as {@link #list}, nested under their parents and sorted by sortOrder, rendered once
+   * per audience like the flat list.
+   */
+  @GetMapping("/tree")
+  @HcPublicEndpoint
+  ResponseEntity<byte[]> tree(Authentication auth) {
+    if (log.isDebugEnabled())
+      log.debug("navService.tree() authUser={}", (auth == null ? "null" : auth.getName()));
+
+    HcSerializedBody body =
+        auth == null
+            ? navResponseCache.anonymousTree()
+            : navResponseCache.treeVisibleTo(() -> scopesOf(auth));
+    return body.toResponseEntity(CacheControl.noCache().cachePrivate());
+  }
+
+  /**
+   * Server-Sent Events stream of the nav version, pushed after every nav change. Clients refetch
+   * /nav when the version differs from the last one they saw instead of polling it.
+   */
+  @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @HcPublicEndpoint
+  SseEmitter events() {
+    if (log.isDebugEnabled()) log.debug("navChangeFeed.subscribe()");
+    return navChangeFeed.subscribe();
+  }
+
   @DeleteMapping("/clobber")
   @Secured("SCOPE_admin:write")
   public ResponseEntity<List<NavItemDto>> bulkDelete(Authentication auth) {
@@ -71,4 +110,22 @@ public class NavController {
     List<NavItemDto> newItems = navService.bulkAdd(navItems, true);
     return ResponseEntity.ok(newItems);
   }
+
+  /**
+   * Scopes of the token, taken from the memoized authorities when the converter built them, parsed
+   * from the SCOPE_ authorities otherwise. Parsed scopes are not interned, a scope no nav item
+   * requires is not registered and does not change what the caller sees.
+   */
+  private static HcScopeSet scopesOf(Authentication auth) {
+    HcScopeSet memoized = HcScopeSet.fromScopeAuthorities(auth.getAuthorities());
+    if (memoized != null) return memoized;
+
+    String prefix = HcScopeSet.SCOPE_AUTHORITY_PREFIX;
+    List<String> scopes = new ArrayList<>();
+    for (GrantedAuthority authority : auth.getAuthorities()) {
+      String name = authority.getAuthority();
+      if (name.startsWith(prefix)) scopes.add(name.substring(prefix.length()));
+    }
+    return HcScopeSet.ofRegistered(scopes);
+  }
 }
@@ -1,11 +1,13 @@
 package com.hedgecourt.auth.api.controller;
 
-import com.hedgecourt.auth.api.service.UserService;
+import com.hedgecourt.auth.api.service.PublicUserSnapshotService;
 import com.hedgecourt.spring.lib.annotation.HcPublicEndpoint;
-import com.hedgecourt.spring.lib.dto.UserDto;
-import java.util.List;
+import java.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -16,18 +18,29 @@ public class PublicUserController {
 
   private static final Logger log = LoggerFactory.getLogger(PublicUserController.class);
 
-  private final UserService userService;
+  private final PublicUserSnapshotService publicUserSnapshotService;
 
-  PublicUserController(UserService userService) {
-    this.userService = userService;
+  @Value("${hc.auth.public-users.max-age-seconds:60}")
+  private long maxAgeSeconds;
+
+  PublicUserController(PublicUserSnapshotService publicUserSnapshotService) {
+    this.publicUserSnapshotService = publicUserSnapshotService;
   }
 
   // Aggregate root
   // tag::get-aggregate-root[]
+
+  /**
+   * Serves the pre-serialized public user snapshot. Spring answers a matching If-None-Match with a
+   * 304 based on the ETag, so repeat visitors don't even get the body.
+   */
   @GetMapping("")
   @HcPublicEndpoint
-  List<UserDto> listPublicUsers() {
-    return userService.listByScopeName("user:public");
+  ResponseEntity<byte[]> listPublicUsers() {
+    if (log.isTraceEnabled()) log.trace("listPublicUsers()");
+    return publicUserSnapshotService
+        .getSnapshot()
+        .toResponseEntity(CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic());
   }
 
   // end::get-aggregate-root[]
@@ -1,27 +1,48 @@
 package com.hedgecourt.auth.api.controller;
 
+import com.hedgecourt.auth.api.dto.UserBulkImportResultDto;
 import com.hedgecourt.auth.api.dto.UserCreateDto;
+import com.hedgecourt.auth.api.dto.UserScopeChangeDto;
+import com.hedgecourt.auth.api.dto.UserScopeChangeResultDto;
+import com.hedgecourt.auth.api.dto.UserSearchResultDto;
 import com.hedgecourt.auth.api.dto.UserUpdateDto;
+import com.hedgecourt.auth.api.error.UserVersionMismatchException;
+import com.hedgecourt.auth.api.model.UserBulkImport;
+import com.hedgecourt.auth.api.model.VersionedUser;
+import com.hedgecourt.auth.api.service.UserSearchService;
 import com.hedgecourt.auth.api.service.UserService;
 import com.hedgecourt.spring.lib.dto.UserDto;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/users")
@@ -31,9 +52,11 @@ public class UserController {
   private static final Logger log = LoggerFactory.getLogger(UserController.class);
 
   private final UserService userService;
+  private final UserSearchService userSearchService;
 
-  UserController(UserService userService) {
+  UserController(UserService userService, UserSearchService userSearchService) {
     this.userService = userService;
+    this.userSearchService = userSearchService;
   }
 
   // Aggregate root
@@ -46,6 +69,61 @@ public class UserController {
 
   // end::get-aggregate-root[]
 
+  @GetMapping("/search")
+  @Secured("SCOPE_user:read")
+  UserSearchResultDto search(
+      @RequestParam(name = "q", required = false) String query,
+      @RequestParam(defaultValue = "CONTAINS") UserSearchService.Match match,
+      @RequestParam(name = "scope", required = false) List<String> scopes,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "20") int size) {
+    return userSearchService.search(query, match, scopes, page, size);
+  }
+
+  /**
+   * Streams the whole directory as NDJSON, one UserDto per line, so reconciliation jobs can start
+   * processing before the export finishes. Gzip is applied when the client accepts it.
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Secured("SCOPE_user:read")
+  ResponseEntity<StreamingResponseBody> export(
+      Authentication auth,
+      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+    boolean gzip = acceptsGzip(acceptEncoding);
+    String authUsername = auth.getName();
+
+    StreamingResponseBody body =
+        out -> {
+          long startNanos = System.nanoTime();
+          long count;
+          if (gzip) {
+            // syncFlush so every periodic flush in the export reaches the client. Closing finishes
+            // the stream and frees the deflater even when the export fails, the container closes
+            // the response itself.
+            try (GZIPOutputStream gzipOut =
+                new GZIPOutputStream(StreamUtils.nonClosing(out), 8192, true)) {
+              count = userService.exportNdjson(gzipOut);
+            }
+          } else {
+            count = userService.exportNdjson(out);
+          }
+          if (log.isInfoEnabled())
+            log.info(
+                "User export finished, users={}, gzip={}, elapsedMillis={}, authUser={}",
+                count,
+                gzip,
+                (System.nanoTime() - startNanos) / 1_000_000,
+                authUsername);
+        };
+
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    return response.body(body);
+  }
+
   @PostMapping("")
   @Secured("SCOPE_user:write")
   ResponseEntity<UserDto> create(@Valid @RequestBody UserCreateDto userDto) {
@@ -53,25 +131,91 @@ public class UserController {
     return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
   }
 
+  /**
+   * Imports a JSON array of users. The array is bound as a whole, so an element that is not valid
+   * JSON for a user rejects the request with 400 and nothing is imported. Rows that parse but fail
+   * validation are reported per row.
+   */
+  @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @Secured("SCOPE_user:write")
+  ResponseEntity<UserBulkImportResultDto> createBulk(
+      Authentication auth, @RequestBody List<UserCreateDto> userDtos) {
+    if (log.isInfoEnabled())
+      log.info(
+          "Processing user bulk import, rows={}, authUser={}", userDtos.size(), auth.getName());
+    UserBulkImport bulk = userService.prepareBulk(userDtos);
+    return ResponseEntity.ok(userService.createBulk(bulk));
+  }
+
+  /**
+   * Imports NDJSON, one user per line. Lines are parsed one at a time, so a malformed line is
+   * reported as a row error and the other lines are still imported.
+   */
+  @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  @Secured("SCOPE_user:write")
+  ResponseEntity<UserBulkImportResultDto> createBulkNdjson(Authentication auth, InputStream body)
+      throws IOException {
+    if (log.isInfoEnabled())
+      log.info("Processing user bulk import (ndjson), authUser={}", auth.getName());
+    // read the rows as they arrive rather than buffering the whole body as a String, and finish
+    // reading before the import opens its transaction
+    UserBulkImport bulk;
+    try (BufferedReader ndjson =
+        new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+      bulk = userService.readBulkNdjson(ndjson);
+    }
+    return ResponseEntity.ok(userService.createBulk(bulk));
+  }
+
+  /**
+   * Returns the user with its version as a strong ETag. A matching If-None-Match is answered with
+   * 304 from a version-only query, without loading the user or rendering JSON.
+   */
   @GetMapping("/{username}")
   @Secured("SCOPE_user:read")
-  UserDto retrieve(@PathVariable String username) {
+  ResponseEntity<UserDto> retrieve(
+      @PathVariable String username,
+      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     if (log.isDebugEnabled())
       log.debug(
           "UserController.retrieve({}) authUser Authorities: {}", username, auth.getAuthorities());
 
+    // version first: if the user changes in between, the body is newer than the ETag, so the next
+    // poll revalidates instead of pinning a stale body under a current ETag
+    String etag = userService.retrieveVersion(username).map(UserController::toEtag).orElse(null);
+    if (etag != null && etagMatches(ifNoneMatch, etag)) {
+      if (log.isDebugEnabled()) log.debug("UserController.retrieve({}) not modified", username);
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
     UserDto userDto = userService.retrieve(username);
 
     if (log.isDebugEnabled()) log.debug("UserController.retrieve({}) have {}", username, userDto);
 
-    return userDto;
+    return etag == null ? ResponseEntity.ok(userDto) : ResponseEntity.ok().eTag(etag).body(userDto);
   }
 
+  /**
+   * Updates the user. With If-Match the update only happens if the user is still at that version,
+   * otherwise 412; without it the last write wins as before.
+   */
   @PutMapping("/{username}")
   @Secured("SCOPE_user:write")
-  UserDto update(@Valid @RequestBody UserUpdateDto userDto, @PathVariable String username) {
-    return userService.update(username, userDto);
+  ResponseEntity<UserDto> update(
+      @Valid @RequestBody UserUpdateDto userDto,
+      @PathVariable String username,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    VersionedUser updated;
+    if (ifMatch == null || "*".equals(ifMatch.trim())) {
+      updated = userService.update(username, userDto);
+    } else {
+      Long expectedVersion = parseEtag(ifMatch);
+      if (expectedVersion == null) throw new UserVersionMismatchException(username, ifMatch);
+      updated = userService.update(username, userDto, expectedVersion);
+    }
+
+    return ResponseEntity.ok().eTag(toEtag(updated.version())).body(updated.user());
   }
 
   @DeleteMapping("/{username}")
@@ -79,4 +223,104 @@ public class UserController {
   UserDto delete(@PathVariable String username) {
     return userService.delete(username);
   }
+
+  @PostMapping("/scopes/grant")
+  @Secured("SCOPE_user:write")
+  UserScopeChangeResultDto grantScopes(
+      Authentication auth, @Valid @RequestBody UserScopeChangeDto change) {
+    if (log.isInfoEnabled())
+      log.info(
+          "Granting scopes {} to {} users, authUser={}",
+          change.getScopes(),
+          change.getUsernames().size(),
+          auth.getName());
+    return userService.grantScopes(change);
+  }
+
+  @PostMapping("/scopes/revoke")
+  @Secured("SCOPE_user:write")
+  UserScopeChangeResultDto revokeScopes(
+      Authentication auth, @Valid @RequestBody UserScopeChangeDto change) {
+    if (log.isInfoEnabled())
+      log.info(
+          "Revoking scopes {} from {} users, authUser={}",
+          change.getScopes(),
+          change.getUsernames().size(),
+          auth.getName());
+    return userService.revokeScopes(change);
+  }
+
+  @PutMapping("/{username}/scopes/{scope}")
+  @Secured("SCOPE_user:write")
+  UserScopeChangeResultDto grantScope(@PathVariable String username, @PathVariable String scope) {
+    return userService.grantScopes(new UserScopeChangeDto(Set.of(username), Set.of(scope)));
+  }
+
+  @DeleteMapping("/{username}/scopes/{scope}")
+  @Secured("SCOPE_user:write")
+  UserScopeChangeResultDto revokeScope(@PathVariable String username, @PathVariable String scope) {
+    return userService.revokeScopes(new UserScopeChangeDto(Set.of(username), Set.of(scope)));
+  }
+
+  private static String toEtag(long version) {
+    return "\"" + version + "\"";
+  }
+
+  /** Weak comparison per RFC 9110, W/ prefixes are ignored and lists are matched entry by entry. */
+  private static boolean etagMatches(String header, String etag) {
+    if (header == null) return false;
+    for (String candidate : header.split(",")) {
+      String tag = candidate.trim();
+      if ("*".equals(tag)) return true;
+      if (tag.startsWith("W/")) tag = tag.substring(2);
+      if (tag.equals(etag)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Reads Accept-Encoding per RFC 9110: comma-separated codings with an optional q weight. gzip is
+   * used when listed with a non-zero weight, or when it is not listed and {@code *} is.
+   */
+  static boolean acceptsGzip(String header) {
+    if (header == null) return false;
+    Boolean wildcard = null;
+    for (String entry : header.split(",")) {
+      String[] parts = entry.split(";");
+      String coding = parts[0].trim();
+      boolean accepted = qValue(parts) > 0;
+      if ("gzip".equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) return accepted;
+      if ("*".equals(coding)) wildcard = accepted;
+    }
+    return Boolean.TRUE.equals(wildcard);
+  }
+
+  /** The q parameter of one Accept-Encoding entry, 1 when absent and 0 when unreadable. */
+  private static double qValue(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String param = parts[i].trim();
+      if (param.length() > 2 && (param.startsWith("q=") || param.startsWith("Q="))) {
+        try {
+          return Double.parseDouble(param.substring(2));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * @return the version in a single strong ETag, or null if the header is anything else
+   */
+  private static Long parseEtag(String header) {
+    String tag = header.trim();
+    if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"')
+      return null;
+    try {
+      return Long.valueOf(tag.substring(1, tag.length() - 1));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
 }
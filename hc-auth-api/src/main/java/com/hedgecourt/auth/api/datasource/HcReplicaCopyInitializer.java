@@ -0,0 +1,50 @@
+package com.hedgecourt.auth.api.datasource;
+
+import java.util.List;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies the migrated and seeded primary into the replica database once the application is ready,
+ * for local H2 setups where the replica is a separate database with no replication behind it.
+ * Writes made after startup are not copied, so the replica stays as stale as a lagging one would.
+ *
+ * <p>Runs ahead of the other ready listeners, which already read through the routing datasource.
+ */
+@Component
+@ConditionalOnProperty(
+    prefix = "hc.auth.datasource.replica",
+    name = {"enabled", "copy-primary-at-startup"},
+    havingValue = "true")
+public class HcReplicaCopyInitializer {
+
+  private static final Logger log = LoggerFactory.getLogger(HcReplicaCopyInitializer.class);
+
+  private final JdbcTemplate primary;
+  private final JdbcTemplate replica;
+
+  public HcReplicaCopyInitializer(
+      @Qualifier("hcPrimaryDataSource") DataSource primary,
+      @Qualifier("hcReplicaDataSource") DataSource replica) {
+    this.primary = new JdbcTemplate(primary);
+    this.replica = new JdbcTemplate(replica);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void copyPrimary() {
+    List<String> statements = primary.queryForList("SCRIPT", String.class);
+    replica.batchUpdate(statements.toArray(String[]::new));
+    if (log.isInfoEnabled())
+      log.info("Copied primary into the replica database, {} statements", statements.size());
+  }
+}
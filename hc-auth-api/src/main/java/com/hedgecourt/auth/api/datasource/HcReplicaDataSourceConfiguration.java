@@ -0,0 +1,62 @@
+package com.hedgecourt.auth.api.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces the auto-configured datasource with a primary and a replica pool behind {@link
+ * HcRoutingDataSource} when {@code hc.auth.datasource.replica.enabled} is true. Both pools are
+ * beans, so each reports its own {@code hikaricp.*} metrics under its pool name.
+ */
+@Configuration
+@ConditionalOnProperty(name = "hc.auth.datasource.replica.enabled", havingValue = "true")
+public class HcReplicaDataSourceConfiguration {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource hcPrimaryDataSource(DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  @ConfigurationProperties("hc.auth.datasource.replica.hikari")
+  public HikariDataSource hcReplicaDataSource(
+      DataSourceProperties properties,
+      @Value("${hc.auth.datasource.replica.url}") String url,
+      @Value("${hc.auth.datasource.replica.username:${spring.datasource.username:}}")
+          String username,
+      @Value("${hc.auth.datasource.replica.password:${spring.datasource.password:}}")
+          String password) {
+    return DataSourceBuilder.create(properties.getClassLoader())
+        .type(HikariDataSource.class)
+        .driverClassName(properties.determineDriverClassName())
+        .url(url)
+        .username(username)
+        .password(password)
+        .build();
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("hcPrimaryDataSource") DataSource primary,
+      @Qualifier("hcReplicaDataSource") DataSource replica,
+      @Value("${hc.auth.datasource.replica.max-lag:1s}") Duration maxLag,
+      @Value("${hc.auth.datasource.replica.retry-after:30s}") Duration retryAfter,
+      MeterRegistry meterRegistry) {
+    return new LazyConnectionDataSourceProxy(
+        new HcRoutingDataSource(primary, replica, maxLag, retryAfter, meterRegistry));
+  }
+}
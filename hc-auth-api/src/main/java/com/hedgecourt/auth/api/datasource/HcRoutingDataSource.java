@@ -0,0 +1,209 @@
+package com.hedgecourt.auth.api.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the primary.
+ *
+ * <p>The route is decided when the connection is fetched, so this has to sit behind a {@link
+ * org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, otherwise the transaction
+ * manager grabs the connection before the read-only flag is bound to the thread.
+ *
+ * <p>A caller's reads stay on the primary for {@code maxLag} after one of its own write
+ * transactions commits on this instance, so it does not read its own write from a replica that has
+ * not caught up. Other callers keep reading from the replica. The caller is the authenticated
+ * principal name; unauthenticated work is keyed by thread, which covers reads later in the same
+ * request. If the replica cannot hand out a connection, the read falls back to the primary and the
+ * replica is skipped for {@code retryAfter}. Routes taken are counted in {@value #ROUTE_COUNTER}.
+ *
+ * <p>Derived read models (rendered nav, the public user snapshot, the search index) reload after
+ * someone else's write, often on another thread, so they wrap their loads in {@link
+ * #readFromPrimary(Supplier)} rather than read a replica that may not have the change yet.
+ */
+public class HcRoutingDataSource extends AbstractRoutingDataSource {
+
+  static final String ROUTE_COUNTER = "hc.auth.datasource.route";
+
+  /** Expired write markers are swept once this many callers are tracked. */
+  private static final int SWEEP_THRESHOLD = 1024;
+
+  private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+  private static final Logger log = LoggerFactory.getLogger(HcRoutingDataSource.class);
+
+  public enum Route {
+    PRIMARY,
+    REPLICA
+  }
+
+  private final DataSource primary;
+  private final DataSource replica;
+  private final long maxLagNanos;
+  private final long retryAfterNanos;
+  private final LongSupplier clock;
+
+  private final Map<String, Long> lastWriteNanosByCaller = new ConcurrentHashMap<>();
+  private final AtomicLong replicaRetryNanos;
+
+  private final Counter primaryCounter;
+  private final Counter replicaCounter;
+  private final Counter fallbackCounter;
+
+  public HcRoutingDataSource(
+      DataSource primary,
+      DataSource replica,
+      Duration maxLag,
+      Duration retryAfter,
+      MeterRegistry meterRegistry) {
+    this(primary, replica, maxLag, retryAfter, meterRegistry, System::nanoTime);
+  }
+
+  HcRoutingDataSource(
+      DataSource primary,
+      DataSource replica,
+      Duration maxLag,
+      Duration retryAfter,
+      MeterRegistry meterRegistry,
+      LongSupplier clock) {
+    this.primary = primary;
+    this.replica = replica;
+    this.maxLagNanos = maxLag.toNanos();
+    this.retryAfterNanos = retryAfter.toNanos();
+    this.clock = clock;
+
+    this.replicaRetryNanos = new AtomicLong(clock.getAsLong());
+
+    this.primaryCounter = routeCounter(meterRegistry, "primary");
+    this.replicaCounter = routeCounter(meterRegistry, "replica");
+    this.fallbackCounter = routeCounter(meterRegistry, "fallback");
+
+    setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+    afterPropertiesSet();
+  }
+
+  private static Counter routeCounter(MeterRegistry meterRegistry, String route) {
+    return Counter.builder(ROUTE_COUNTER)
+        .description("Connections handed out by the routing datasource")
+        .tag("route", route)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Runs {@code work} with every connection it fetches routed to the primary, read-only or not. A
+   * no-op without replica routing.
+   */
+  public static <T> T readFromPrimary(Supplier<T> work) {
+    if (FORCE_PRIMARY.get() != null) return work.get();
+    FORCE_PRIMARY.set(Boolean.TRUE);
+    try {
+      return work.get();
+    } finally {
+      FORCE_PRIMARY.remove();
+    }
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        || FORCE_PRIMARY.get() != null) return Route.PRIMARY;
+
+    long now = clock.getAsLong();
+    if (isWithinOwnWriteWindow(now)) return Route.PRIMARY;
+    if (now - replicaRetryNanos.get() < 0) return Route.PRIMARY;
+    return Route.REPLICA;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return getConnection(null, null, false);
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return getConnection(username, password, true);
+  }
+
+  private Connection getConnection(String username, String password, boolean withCredentials)
+      throws SQLException {
+    if (determineCurrentLookupKey() == Route.REPLICA) {
+      try {
+        Connection connection =
+            withCredentials ? replica.getConnection(username, password) : replica.getConnection();
+        replicaCounter.increment();
+        return connection;
+      } catch (SQLException e) {
+        replicaRetryNanos.set(clock.getAsLong() + retryAfterNanos);
+        fallbackCounter.increment();
+        if (log.isWarnEnabled())
+          log.warn(
+              "Replica unavailable, reading from primary for the next {} ms: {}",
+              Duration.ofNanos(retryAfterNanos).toMillis(),
+              e.getMessage());
+      }
+    }
+
+    Connection connection =
+        withCredentials ? primary.getConnection(username, password) : primary.getConnection();
+    primaryCounter.increment();
+    markWriteOnCommit();
+    return connection;
+  }
+
+  /** Identifies whose writes a transaction belongs to, see the class comment. */
+  private static String currentCaller() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null
+        && authentication.isAuthenticated()
+        && !(authentication instanceof AnonymousAuthenticationToken))
+      return "principal:" + authentication.getName();
+    return "thread:" + Thread.currentThread().getId();
+  }
+
+  private boolean isWithinOwnWriteWindow(long now) {
+    String caller = currentCaller();
+    Long lastWrite = lastWriteNanosByCaller.get(caller);
+    if (lastWrite == null) return false;
+    if (now - lastWrite < maxLagNanos) return true;
+
+    lastWriteNanosByCaller.remove(caller, lastWrite);
+    return false;
+  }
+
+  /** Starts the caller's read-your-writes window when the current write transaction commits. */
+  private void markWriteOnCommit() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()
+        || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return;
+
+    String caller = currentCaller();
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            long now = clock.getAsLong();
+            lastWriteNanosByCaller.merge(caller, now, Math::max);
+            if (lastWriteNanosByCaller.size() > SWEEP_THRESHOLD)
+              lastWriteNanosByCaller.values().removeIf(lastWrite -> now - lastWrite >= maxLagNanos);
+          }
+        });
+  }
+}
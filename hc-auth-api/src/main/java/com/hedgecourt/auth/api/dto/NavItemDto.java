@@ -1,5 +1,6 @@
 package com.hedgecourt.auth.api.dto;
 
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,4 +18,5 @@ public class NavItemDto {
   private String publicUrl;
   private String path;
   private Integer sortOrder;
+  private Set<String> requiredScopes;
 }
@@ -0,0 +1,36 @@
+package com.hedgecourt.auth.api.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NavTreeNodeDto {
+  private Long id;
+  private String title;
+  private String description;
+  private String publicUrl;
+  private String path;
+  private Integer sortOrder;
+  private Set<String> requiredScopes;
+  @Builder.Default private List<NavTreeNodeDto> children = new ArrayList<>();
+
+  public static NavTreeNodeDto of(NavItemDto navItem) {
+    return NavTreeNodeDto.builder()
+        .id(navItem.getId())
+        .title(navItem.getTitle())
+        .description(navItem.getDescription())
+        .publicUrl(navItem.getPublicUrl())
+        .path(navItem.getPath())
+        .sortOrder(navItem.getSortOrder())
+        .requiredScopes(navItem.getRequiredScopes())
+        .build();
+  }
+}
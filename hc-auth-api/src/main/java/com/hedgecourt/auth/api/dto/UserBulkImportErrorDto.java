@@ -0,0 +1,21 @@
+package com.hedgecourt.auth.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBulkImportErrorDto {
+  /**
+   * Zero-based position of the row in the submitted array, or its line number in an NDJSON stream
+   * (blank lines count).
+   */
+  private int index;
+
+  private String username;
+  private String message;
+}
@@ -0,0 +1,20 @@
+package com.hedgecourt.auth.api.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBulkImportResultDto {
+  private int requested;
+  private int imported;
+  private int failed;
+  private long elapsedMillis;
+  private double usersPerSecond;
+  private List<UserBulkImportErrorDto> errors;
+}
@@ -0,0 +1,21 @@
+package com.hedgecourt.auth.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserScopeChangeDto {
+
+  @NotEmpty(message = "At least one username is required")
+  private Set<String> usernames;
+
+  @NotEmpty(message = "At least one scope is required")
+  private Set<String> scopes;
+}
@@ -0,0 +1,21 @@
+package com.hedgecourt.auth.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserScopeChangeResultDto {
+  private int users;
+  private int scopes;
+
+  /**
+   * user_scopes rows inserted or deleted, grants already held and revokes of absent scopes don't
+   * count.
+   */
+  private int assignmentsChanged;
+}
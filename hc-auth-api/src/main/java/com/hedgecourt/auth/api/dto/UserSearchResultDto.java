@@ -0,0 +1,19 @@
+package com.hedgecourt.auth.api.dto;
+
+import com.hedgecourt.spring.lib.dto.UserDto;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserSearchResultDto {
+  private int page;
+  private int size;
+  private long total;
+  private List<UserDto> users;
+}
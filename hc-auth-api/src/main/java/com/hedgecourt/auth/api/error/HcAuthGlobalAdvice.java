@@ -1,10 +1,12 @@
 package com.hedgecourt.auth.api.error;
 
 import com.hedgecourt.spring.lib.error.UserNotFoundException;
+import com.hedgecourt.spring.lib.security.HcAuthProblemHandler;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -27,6 +29,29 @@ public class HcAuthGlobalAdvice {
     return new ResponseEntity<>(errors, HttpStatus.CONFLICT);
   }
 
+  @ExceptionHandler(InvalidScopeException.class)
+  public ResponseEntity<Map<String, String>> invalidScopeHandler(InvalidScopeException ex) {
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", ex.getMessage());
+    return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(InvalidNavItemException.class)
+  public ResponseEntity<Map<String, String>> invalidNavItemHandler(InvalidNavItemException ex) {
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", ex.getMessage());
+    return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+  }
+
+  /**
+   * No body, the request only accepts text/event-stream, which a message map cannot be written as.
+   * EventSource clients stop reconnecting on the 503 and fall back to polling.
+   */
+  @ExceptionHandler(NavFeedFullException.class)
+  public ResponseEntity<Void> navFeedFullHandler(NavFeedFullException ex) {
+    return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
   @ExceptionHandler(UserNotFoundException.class)
   public ResponseEntity<Map<String, String>> userNotFoundHandler(UserNotFoundException ex) {
     Map<String, String> errors = new HashMap<>();
@@ -34,10 +59,33 @@ public class HcAuthGlobalAdvice {
     return new ResponseEntity<>(errors, HttpStatus.NOT_FOUND);
   }
 
-  @ExceptionHandler(AuthenticationException.class)
-  public ResponseEntity<Map<String, String>> authenticationHandler(AuthenticationException ex) {
+  @ExceptionHandler(UserVersionMismatchException.class)
+  public ResponseEntity<Map<String, String>> userVersionMismatchHandler(
+      UserVersionMismatchException ex) {
     Map<String, String> errors = new HashMap<>();
     errors.put("message", ex.getMessage());
-    return new ResponseEntity<>(errors, HttpStatus.UNAUTHORIZED);
+    return new ResponseEntity<>(errors, HttpStatus.PRECONDITION_FAILED);
+  }
+
+  /**
+   * A concurrent write got in between our read and our flush. The client sent no precondition, so
+   * this is a plain conflict, the If-Match update reports its own miss as a 412.
+   */
+  @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+  public ResponseEntity<Map<String, String>> optimisticLockingHandler(
+      ObjectOptimisticLockingFailureException ex) {
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "The resource was modified concurrently, reload and retry.");
+    return new ResponseEntity<>(errors, HttpStatus.CONFLICT);
+  }
+
+  /**
+   * Failed logins and method security finding no authentication, as static problem bodies that cost
+   * no serialization. A wrong username and a wrong password get the same one, so the response does
+   * not tell a caller which usernames exist.
+   */
+  @ExceptionHandler(AuthenticationException.class)
+  public ResponseEntity<byte[]> authenticationHandler(AuthenticationException ex) {
+    return HcAuthProblemHandler.problemFor(ex).toResponseEntity();
   }
 }
@@ -0,0 +1,8 @@
+package com.hedgecourt.auth.api.error;
+
+public class InvalidNavItemException extends RuntimeException {
+
+  public InvalidNavItemException(String message) {
+    super(message);
+  }
+}
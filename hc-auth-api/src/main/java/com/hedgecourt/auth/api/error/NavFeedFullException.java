@@ -0,0 +1,8 @@
+package com.hedgecourt.auth.api.error;
+
+public class NavFeedFullException extends RuntimeException {
+
+  public NavFeedFullException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,12 @@
+package com.hedgecourt.auth.api.error;
+
+public class UserVersionMismatchException extends RuntimeException {
+
+  public UserVersionMismatchException(String username, String expectedEtag) {
+    super("User '" + username + "' has changed, it no longer matches " + expectedEtag + ".");
+  }
+
+  public UserVersionMismatchException(String username, String expectedEtag, Throwable cause) {
+    super("User '" + username + "' has changed, it no longer matches " + expectedEtag + ".", cause);
+  }
+}
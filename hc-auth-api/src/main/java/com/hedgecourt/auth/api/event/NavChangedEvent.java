@@ -0,0 +1,9 @@
+package com.hedgecourt.auth.api.event;
+
+/**
+ * Published by NavService after nav items were added or deleted. Rendered nav responses listen for
+ * it and are dropped once the change commits.
+ *
+ * @param itemCount number of nav items the change touched
+ */
+public record NavChangedEvent(int itemCount) {}
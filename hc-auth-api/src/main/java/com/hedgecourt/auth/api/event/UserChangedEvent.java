@@ -0,0 +1,16 @@
+package com.hedgecourt.auth.api.event;
+
+import java.util.Set;
+
+/**
+ * Published by UserService after users or their scopes were created, modified or deleted. Derived
+ * read models (snapshots, indexes) listen for it instead of polling the database.
+ *
+ * @param usernames the users that changed
+ */
+public record UserChangedEvent(Set<String> usernames) {
+
+  public static UserChangedEvent of(String username) {
+    return new UserChangedEvent(Set.of(username));
+  }
+}
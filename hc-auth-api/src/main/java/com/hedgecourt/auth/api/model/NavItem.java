@@ -1,10 +1,12 @@
 package com.hedgecourt.auth.api.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -39,4 +41,8 @@ public class NavItem {
 
   @Column(nullable = false)
   private Integer sortOrder;
+
+  /** Scopes a user needs, all of them, to see this item and its children. */
+  @Convert(converter = ScopeNamesConverter.class)
+  private Set<String> requiredScopes;
 }
@@ -2,9 +2,15 @@ package com.hedgecourt.auth.api.model;
 
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 public interface NavItemRepository extends JpaRepository<NavItem, Long> {
   @Query("SELECT n FROM NavItem n ORDER BY n.sortOrder ASC")
   List<NavItem> findAllOrderedBySortOrder();
+
+  /** Breaks every parent link in one statement, so a following bulk delete meets no fk. */
+  @Modifying
+  @Query("UPDATE NavItem n SET n.childOf = null WHERE n.childOf IS NOT NULL")
+  int unlinkAll();
 }
@@ -0,0 +1,26 @@
+package com.hedgecourt.auth.api.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/** Stores a set of scope names as one space-delimited column, sorted so equal sets match. */
+@Converter
+public class ScopeNamesConverter implements AttributeConverter<Set<String>, String> {
+
+  @Override
+  public String convertToDatabaseColumn(Set<String> scopes) {
+    if (scopes == null || scopes.isEmpty()) return null;
+    return String.join(" ", new TreeSet<>(scopes));
+  }
+
+  @Override
+  public Set<String> convertToEntityAttribute(String column) {
+    if (column == null || column.isBlank()) return Collections.emptySet();
+    return Arrays.stream(column.trim().split("\\s+")).collect(Collectors.toUnmodifiableSet());
+  }
+}
@@ -1,8 +1,12 @@
 package com.hedgecourt.auth.api.model;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface ScopeRepository extends JpaRepository<Scope, Long> {
   Optional<Scope> findByName(String name);
+
+  List<Scope> findAllByNameIn(Collection<String> names);
 }
@@ -1,30 +1,46 @@
 package com.hedgecourt.auth.api.model;
 
+import com.hedgecourt.spring.lib.model.HcScopeSet;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 @Entity
-@Table(name = "users")
+@Table(
+    name = "users",
+    indexes = {
+      @Index(name = "idx_users_email", columnList = "email"),
+      @Index(name = "idx_users_lastname", columnList = "lastname"),
+      @Index(name = "idx_users_firstname", columnList = "firstname")
+    })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
-@Builder
 public class User implements UserDetails {
 
   @Id
@@ -39,17 +55,71 @@ public class User implements UserDetails {
   private String password;
 
   @ManyToMany(fetch = FetchType.EAGER)
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-scopes")
   @JoinTable(
       name = "user_scopes",
       joinColumns = @JoinColumn(name = "username"),
       inverseJoinColumns = @JoinColumn(name = "scope_id"))
   private Set<Scope> scopes;
 
+  /** Bumped by hibernate on every change, including scope changes. Served as the user's ETag. */
+  @Version private Long version;
+
+  /**
+   * Bitset view of {@link #scopes}, built on first use and dropped by {@link #setScopes}. Code that
+   * mutates the scope collection in place must go through setScopes for the view to follow.
+   */
+  @Transient
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @Setter(AccessLevel.NONE)
+  private HcScopeSet scopeSet;
+
+  @Builder
+  public User(
+      String username,
+      String firstname,
+      String lastname,
+      String email,
+      String password,
+      Set<Scope> scopes) {
+    this.username = username;
+    this.firstname = firstname;
+    this.lastname = lastname;
+    this.email = email;
+    this.password = password;
+    this.scopes = mutableCopy(scopes);
+  }
+
+  public void setScopes(Set<Scope> scopes) {
+    this.scopes = mutableCopy(scopes);
+    this.scopeSet = null;
+  }
+
+  /** Hibernate wraps and later clears the collection it was given, Set.of() would not survive. */
+  private static Set<Scope> mutableCopy(Set<Scope> scopes) {
+    return scopes == null ? null : new HashSet<>(scopes);
+  }
+
+  public HcScopeSet getScopeSet() {
+    HcScopeSet current = scopeSet;
+    if (current == null) {
+      current =
+          scopes == null
+              ? HcScopeSet.EMPTY
+              : HcScopeSet.of(scopes.stream().map(Scope::getName).collect(Collectors.toList()));
+      scopeSet = current;
+    }
+    return current;
+  }
+
+  public boolean hasScope(String scope) {
+    return getScopeSet().contains(scope);
+  }
+
   @Override
   public Collection<? extends GrantedAuthority> getAuthorities() {
-    return scopes.stream()
-        .map(scope -> new SimpleGrantedAuthority(scope.getName()))
-        .collect(Collectors.toSet());
+    return getScopeSet().authorities();
   }
 
   @Override
@@ -0,0 +1,25 @@
+package com.hedgecourt.auth.api.model;
+
+import com.hedgecourt.auth.api.dto.UserBulkImportErrorDto;
+import com.hedgecourt.auth.api.dto.UserCreateDto;
+import java.util.List;
+
+/**
+ * A bulk import that has been parsed and checked on its own, before any database work. Rows that
+ * failed those checks are already in {@code errors}, the rest still have to clear the usernames and
+ * scopes in the database.
+ *
+ * @param rows rows that passed bean validation and are not repeated within the request
+ * @param requested rows in the request, including those that failed to parse
+ * @param errors per-row errors found so far
+ * @param startNanos {@link System#nanoTime()} when the import started, for its throughput
+ */
+public record UserBulkImport(
+    List<Row> rows, int requested, List<UserBulkImportErrorDto> errors, long startNanos) {
+
+  /**
+   * @param index zero-based position in the array, or line number in an NDJSON stream
+   * @param user the row
+   */
+  public record Row(int index, UserCreateDto user) {}
+}
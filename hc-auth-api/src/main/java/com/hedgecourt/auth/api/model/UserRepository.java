@@ -1,11 +1,107 @@
 package com.hedgecourt.auth.api.model;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface UserRepository extends JpaRepository<User, String> {
-  @Query("SELECT u from User u  JOIN u.scopes s WHERE s.name = :scopeName")
-  List<User> findAllByScopeName(@Param("scopeName") String scopeName);
+  String USER_VIEW_SELECT =
+      "SELECT new com.hedgecourt.auth.api.model.UserView("
+          + "u.username, u.firstname, u.lastname, u.email, listagg(s.name, ' ')) "
+          + "FROM User u LEFT JOIN u.scopes s ";
+  String USER_VIEW_GROUP_BY = " GROUP BY u.username, u.firstname, u.lastname, u.email";
+
+  @Query(USER_VIEW_SELECT + USER_VIEW_GROUP_BY + " ORDER BY u.username")
+  List<UserView> findAllViews();
+
+  /** Callers must close the stream and hold a transaction open while consuming it. */
+  @Query(USER_VIEW_SELECT + USER_VIEW_GROUP_BY + " ORDER BY u.username")
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<UserView> streamAllViews();
+
+  @Query(USER_VIEW_SELECT + "WHERE u.username = :username" + USER_VIEW_GROUP_BY)
+  Optional<UserView> findViewByUsername(@Param("username") String username);
+
+  @Query(
+      USER_VIEW_SELECT
+          + "WHERE u.username IN "
+          + "(SELECT su.username FROM User su JOIN su.scopes ss WHERE ss.name = :scopeName)"
+          + USER_VIEW_GROUP_BY
+          + " ORDER BY u.username")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  List<UserView> findAllViewsByScopeName(@Param("scopeName") String scopeName);
+
+  @Query(USER_VIEW_SELECT + "WHERE u.username IN :usernames" + USER_VIEW_GROUP_BY)
+  List<UserView> findViewsByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+  @Query("SELECT u.version FROM User u WHERE u.username = :username")
+  Optional<Long> findVersionByUsername(@Param("username") String username);
+
+  @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+  Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+  // Set-based scope assignment. The native space hint limits second-level cache invalidation to
+  // the user_scopes collection region instead of every region.
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          "INSERT INTO user_scopes (username, scope_id) "
+              + "SELECT u.username, s.id FROM users u CROSS JOIN scopes s "
+              + "WHERE u.username IN (:usernames) AND s.name IN (:scopes) "
+              + "AND NOT EXISTS (SELECT 1 FROM user_scopes us "
+              + "WHERE us.username = u.username AND us.scope_id = s.id)")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_scopes"))
+  int grantScopes(
+      @Param("usernames") Collection<String> usernames, @Param("scopes") Collection<String> scopes);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          "DELETE FROM user_scopes WHERE username IN (:usernames) "
+              + "AND scope_id IN (SELECT s.id FROM scopes s WHERE s.name IN (:scopes))")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_scopes"))
+  int revokeScopes(
+      @Param("usernames") Collection<String> usernames, @Param("scopes") Collection<String> scopes);
+
+  // Scope changes bypass the entity, so the ETag version is bumped explicitly, and only for users
+  // whose user_scopes rows the following grant or revoke will change. Run these before it.
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          "UPDATE users u SET version = version + 1 "
+              + "WHERE u.username IN (:usernames) AND EXISTS (SELECT 1 FROM scopes s "
+              + "WHERE s.name IN (:scopes) AND NOT EXISTS (SELECT 1 FROM user_scopes us "
+              + "WHERE us.username = u.username AND us.scope_id = s.id))")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+  int incrementVersionsMissingScopes(
+      @Param("usernames") Collection<String> usernames, @Param("scopes") Collection<String> scopes);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          "UPDATE users u SET version = version + 1 "
+              + "WHERE u.username IN (:usernames) AND EXISTS (SELECT 1 FROM user_scopes us "
+              + "JOIN scopes s ON s.id = us.scope_id "
+              + "WHERE us.username = u.username AND s.name IN (:scopes))")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+  int incrementVersionsHoldingScopes(
+      @Param("usernames") Collection<String> usernames, @Param("scopes") Collection<String> scopes);
 }
@@ -0,0 +1,19 @@
+package com.hedgecourt.auth.api.model;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only projection of a user, selected by constructor expression so no managed entity, no
+ * password hash and no scope entities are loaded. Scope names arrive aggregated by the database
+ * into one space-delimited string, spaces are not allowed in scope tokens (RFC 6749 section 3.3).
+ */
+public record UserView(
+    String username, String firstname, String lastname, String email, String scopeNames) {
+
+  public Set<String> scopes() {
+    if (scopeNames == null || scopeNames.isEmpty()) return Set.of();
+    return Arrays.stream(scopeNames.split(" ")).collect(Collectors.toSet());
+  }
+}
@@ -0,0 +1,12 @@
+package com.hedgecourt.auth.api.model;
+
+import com.hedgecourt.spring.lib.dto.UserDto;
+
+/**
+ * A user as written by an update, with the version the write left it at. Callers build the ETag
+ * from it rather than reading the version back in a second query.
+ *
+ * @param user the updated user
+ * @param version the user's version after the update
+ */
+public record VersionedUser(UserDto user, long version) {}
@@ -0,0 +1,280 @@
+package com.hedgecourt.auth.api.model.init;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.hedgecourt.auth.api.model.ScopeNamesConverter;
+import com.hedgecourt.auth.api.model.init.SeedData.NavItemSeed;
+import com.hedgecourt.auth.api.model.init.SeedData.UserSeed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * Loads a declarative seed file (see {@code classpath:seed/}) into an empty database.
+ *
+ * <p>Rows are inserted as JDBC batches in a single transaction and each distinct password is hashed
+ * once, seed users may also carry a precomputed {@code passwordHash}. When {@code
+ * hc.auth.seed.snapshot-dir} is set, the seeded tables are dumped as an H2 script which later
+ * startups restore instead of hashing and inserting again. The snapshot name carries the schema
+ * version and a checksum of the seed file and of a SHA-256 digest of {@code hc.auth.init.password},
+ * so a new migration, an edited seed file or a changed init password falls back to the seed file
+ * and writes a fresh snapshot.
+ *
+ * <p>Seed time is recorded as the {@value #SEED_TIMER} timer, tagged with the source used.
+ */
+@Component
+public class DatabaseSeeder {
+
+  static final String SEED_TIMER = "hc.auth.seed";
+
+  private static final Logger log = LoggerFactory.getLogger(DatabaseSeeder.class);
+
+  private static final int BATCH_SIZE = 500;
+  private static final String SEEDED_TABLES = "scopes, users, user_scopes, nav_item";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final PasswordEncoder passwordEncoder;
+  private final MeterRegistry meterRegistry;
+  private final String snapshotDir;
+  private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+  private final ScopeNamesConverter scopeNamesConverter = new ScopeNamesConverter();
+
+  public DatabaseSeeder(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      PasswordEncoder passwordEncoder,
+      MeterRegistry meterRegistry,
+      @Value("${hc.auth.seed.snapshot-dir:}") String snapshotDir) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.passwordEncoder = passwordEncoder;
+    this.meterRegistry = meterRegistry;
+    this.snapshotDir = snapshotDir;
+  }
+
+  /** Seeds the database from {@code seedFile}, does nothing if it already holds scopes. */
+  public void seed(Resource seedFile, String initPassword, boolean includeNav) {
+    Long scopeCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM scopes", Long.class);
+    if (scopeCount != null && scopeCount > 0) {
+      if (log.isInfoEnabled()) log.info("Database already initialized, skipping seed data");
+      return;
+    }
+
+    long start = System.nanoTime();
+    byte[] content = read(seedFile);
+    Path snapshot = snapshotPath(seedFile, content, initPassword, includeNav);
+
+    String source;
+    Object origin;
+    if (snapshot != null && Files.isReadable(snapshot)) {
+      jdbcTemplate.execute("RUNSCRIPT FROM " + sqlLiteral(snapshot));
+      source = "snapshot";
+      origin = snapshot;
+    } else {
+      SeedData data = parse(seedFile, content);
+      transactionTemplate.executeWithoutResult(status -> insert(data, initPassword, includeNav));
+      if (snapshot != null) writeSnapshot(snapshot);
+      source = "file";
+      origin = seedFile.getDescription();
+    }
+
+    long elapsedNanos = System.nanoTime() - start;
+    Timer.builder(SEED_TIMER)
+        .description("Time spent seeding the database at startup")
+        .tag("source", source)
+        .register(meterRegistry)
+        .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+    if (log.isInfoEnabled())
+      log.info(
+          "Seeded database from {} {} in {} ms: {}",
+          source,
+          origin,
+          TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+          counts());
+  }
+
+  private void insert(SeedData data, String initPassword, boolean includeNav) {
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO scopes (name, description) VALUES (?, ?)",
+        data.scopes(),
+        BATCH_SIZE,
+        (ps, scope) -> {
+          ps.setString(1, scope.name());
+          ps.setString(2, scope.description());
+        });
+
+    Map<String, Long> scopeIds = new HashMap<>();
+    jdbcTemplate.query(
+        "SELECT id, name FROM scopes",
+        (RowCallbackHandler) rs -> scopeIds.put(rs.getString(2), rs.getLong(1)));
+
+    // seed users share the init password, bcrypt it once rather than once per user
+    Map<String, String> hashes = new HashMap<>();
+    List<Object[]> assignments = new ArrayList<>();
+    for (UserSeed user : data.users()) {
+      for (String scopeName : user.scopes()) {
+        Long scopeId = scopeIds.get(scopeName);
+        if (scopeId == null)
+          throw new IllegalStateException(
+              "Seed user " + user.username() + " references unknown scope " + scopeName);
+        assignments.add(new Object[] {user.username(), scopeId});
+      }
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO users (username, firstname, lastname, email, password, version)"
+            + " VALUES (?, ?, ?, ?, ?, 0)",
+        data.users(),
+        BATCH_SIZE,
+        (ps, user) -> {
+          ps.setString(1, user.username());
+          ps.setString(2, user.firstname());
+          ps.setString(3, user.lastname());
+          ps.setString(4, user.email());
+          ps.setString(
+              5,
+              user.passwordHash() != null
+                  ? user.passwordHash()
+                  : hashes.computeIfAbsent(initPassword, passwordEncoder::encode));
+        });
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO user_scopes (username, scope_id) VALUES (?, ?)", assignments);
+
+    if (!includeNav) {
+      if (log.isInfoEnabled() && !data.navItems().isEmpty())
+        log.info("Nav init is disabled, not adding any nav items");
+      return;
+    }
+
+    // one batch runs in list order, so every parent has to precede its children
+    Set<Long> inserted = new HashSet<>();
+    for (NavItemSeed item : data.navItems()) {
+      if (item.childOf() != null && !inserted.contains(item.childOf()))
+        throw new IllegalStateException(
+            "Seed nav item " + item.id() + " is listed before its parent " + item.childOf());
+      inserted.add(item.id());
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO nav_item"
+            + " (id, child_of, title, description, public_url, path, sort_order, required_scopes)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+        data.navItems(),
+        BATCH_SIZE,
+        (ps, item) -> {
+          ps.setLong(1, item.id());
+          if (item.childOf() == null) ps.setNull(2, Types.BIGINT);
+          else ps.setLong(2, item.childOf());
+          ps.setString(3, item.title());
+          ps.setString(4, item.description());
+          ps.setString(5, item.publicUrl());
+          ps.setString(6, item.path());
+          ps.setInt(7, item.sortOrder());
+          ps.setString(8, scopeNamesConverter.convertToDatabaseColumn(item.requiredScopes()));
+        });
+  }
+
+  /** Snapshot file for this seed input, null when snapshots are off or the database is not H2. */
+  private Path snapshotPath(
+      Resource seedFile, byte[] content, String initPassword, boolean includeNav) {
+    if (!StringUtils.hasText(snapshotDir)) return null;
+
+    String product =
+        jdbcTemplate.execute(
+            (ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+    if (!"H2".equals(product)) {
+      if (log.isWarnEnabled())
+        log.warn("Seed snapshots need H2, not {}, seeding from file", product);
+      return null;
+    }
+
+    Integer schemaRank =
+        jdbcTemplate.queryForObject(
+            "SELECT COALESCE(MAX(\"installed_rank\"), 0) FROM \"flyway_schema_history\"",
+            Integer.class);
+
+    CRC32 crc = new CRC32();
+    crc.update(content);
+    // the snapshot holds hashes of the init password, digest it so the name does not carry it
+    crc.update(sha256(initPassword == null ? "" : initPassword));
+    crc.update(includeNav ? 1 : 0);
+
+    String name = StringUtils.stripFilenameExtension(String.valueOf(seedFile.getFilename()));
+    return Path.of(snapshotDir)
+        .resolve(String.format("%s-v%d-%08x.sql", name, schemaRank, crc.getValue()));
+  }
+
+  private void writeSnapshot(Path snapshot) {
+    try {
+      Files.createDirectories(snapshot.toAbsolutePath().getParent());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to create seed snapshot directory", e);
+    }
+    jdbcTemplate.execute("SCRIPT DROP TO " + sqlLiteral(snapshot) + " TABLE " + SEEDED_TABLES);
+    if (log.isInfoEnabled()) log.info("Wrote seed snapshot {}", snapshot);
+  }
+
+  private Map<String, Long> counts() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (String table : List.of("scopes", "users", "user_scopes", "nav_item")) {
+      counts.put(table, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class));
+    }
+    return counts;
+  }
+
+  private SeedData parse(Resource seedFile, byte[] content) {
+    try {
+      return yamlMapper.readValue(content, SeedData.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to parse seed file " + seedFile.getDescription(), e);
+    }
+  }
+
+  private static byte[] read(Resource seedFile) {
+    try (InputStream in = seedFile.getInputStream()) {
+      return in.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read seed file " + seedFile.getDescription(), e);
+    }
+  }
+
+  private static byte[] sha256(String value) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static String sqlLiteral(Path path) {
+    return "'" + path.toAbsolutePath().toString().replace("'", "''") + "'";
+  }
+}
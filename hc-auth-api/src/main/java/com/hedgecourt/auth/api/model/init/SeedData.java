@@ -0,0 +1,40 @@
+package com.hedgecourt.auth.api.model.init;
+
+import java.util.List;
+import java.util.Set;
+
+/** Declarative seed file contents, see {@code classpath:seed/}. */
+record SeedData(List<ScopeSeed> scopes, List<NavItemSeed> navItems, List<UserSeed> users) {
+
+  SeedData {
+    scopes = scopes == null ? List.of() : scopes;
+    navItems = navItems == null ? List.of() : navItems;
+    users = users == null ? List.of() : users;
+  }
+
+  record ScopeSeed(String name, String description) {}
+
+  record NavItemSeed(
+      Long id,
+      Long childOf,
+      String title,
+      String description,
+      String publicUrl,
+      String path,
+      Integer sortOrder,
+      Set<String> requiredScopes) {}
+
+  /** A user without a {@code passwordHash} gets the init password. */
+  record UserSeed(
+      String username,
+      String firstname,
+      String lastname,
+      String email,
+      String passwordHash,
+      List<String> scopes) {
+
+    UserSeed {
+      scopes = scopes == null ? List.of() : scopes;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package com.hedgecourt.auth.api.service;
+
+import com.hedgecourt.auth.api.error.NavFeedFullException;
+import com.hedgecourt.auth.api.event.NavChangedEvent;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes the nav version to Server-Sent Event subscribers whenever a nav change commits, so clients
+ * refetch /nav only when it actually changed. Every subscriber gets the current version right away,
+ * including after a reconnect, and a client refetches whenever the version differs from the last
+ * one it saw. The version restarts with the application, which a client sees as a change.
+ *
+ * <p>Open streams hold no request thread, only an async servlet request, and are capped at {@code
+ * hc.auth.nav.events.max-subscribers}. Broadcasts and heartbeats run on one background thread, and
+ * broadcasts coalesce, so a burst of changes costs each subscriber one write of the latest version.
+ */
+@Service
+public class NavChangeFeed {
+  private static final Logger log = LoggerFactory.getLogger(NavChangeFeed.class);
+
+  static final String EVENT_NAME = "nav-changed";
+
+  private final long timeoutMillis;
+  private final long reconnectMillis;
+  private final Semaphore slots;
+
+  private final Set<SseEmitter> subscribers = ConcurrentHashMap.newKeySet();
+  private final AtomicLong version = new AtomicLong(1);
+
+  private final ScheduledExecutorService feedExecutor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "nav-change-feed");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /** True while a broadcast is queued but not yet started, further changes piggyback on it. */
+  private final AtomicBoolean broadcastPending = new AtomicBoolean();
+
+  public NavChangeFeed(
+      @Value("${hc.auth.nav.events.max-subscribers:1000}") int maxSubscribers,
+      @Value("${hc.auth.nav.events.timeout:30m}") Duration timeout,
+      @Value("${hc.auth.nav.events.reconnect:5s}") Duration reconnect,
+      @Value("${hc.auth.nav.events.heartbeat:30s}") Duration heartbeat) {
+    this.slots = new Semaphore(maxSubscribers);
+    this.timeoutMillis = timeout.toMillis();
+    this.reconnectMillis = reconnect.toMillis();
+    feedExecutor.scheduleWithFixedDelay(
+        this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  public long currentVersion() {
+    return version.get();
+  }
+
+  /**
+   * Opens a stream that starts with the current version.
+   *
+   * @throws NavFeedFullException when the subscriber cap is reached
+   */
+  public SseEmitter subscribe() {
+    if (!slots.tryAcquire())
+      throw new NavFeedFullException("Too many nav event subscribers, poll /nav instead.");
+
+    SseEmitter emitter = new SseEmitter(timeoutMillis);
+    subscribers.add(emitter);
+    emitter.onCompletion(() -> unsubscribe(emitter));
+    emitter.onTimeout(() -> unsubscribe(emitter));
+    emitter.onError(e -> unsubscribe(emitter));
+
+    send(emitter, version.get());
+    if (log.isDebugEnabled()) log.debug("nav event subscriber added, count={}", subscribers.size());
+    return emitter;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onNavChanged(NavChangedEvent event) {
+    long next = version.incrementAndGet();
+    if (log.isDebugEnabled())
+      log.debug("nav changed, items={}, pushing version={}", event.itemCount(), next);
+    requestBroadcast();
+  }
+
+  /**
+   * Schedules a broadcast unless one is already queued. The pending flag is cleared when the
+   * broadcast starts, so a change that lands mid-broadcast still gets pushed afterwards.
+   */
+  private void requestBroadcast() {
+    if (broadcastPending.compareAndSet(false, true)) {
+      feedExecutor.execute(
+          () -> {
+            broadcastPending.set(false);
+            long current = version.get();
+            subscribers.forEach(emitter -> send(emitter, current));
+          });
+    }
+  }
+
+  /**
+   * A disconnected client is only noticed on the next write, so idle streams get a comment line now
+   * and then. That frees the slots of clients that went away and keeps proxies from closing quiet
+   * connections.
+   */
+  private void heartbeat() {
+    subscribers.forEach(emitter -> send(emitter, SseEmitter.event().comment("heartbeat")));
+  }
+
+  private void send(SseEmitter emitter, long current) {
+    send(
+        emitter,
+        SseEmitter.event()
+            .name(EVENT_NAME)
+            .id(Long.toString(current))
+            .reconnectTime(reconnectMillis)
+            // written as is, a pretty-printing ObjectMapper would split it over data lines
+            .data("{\"version\":" + current + "}", MediaType.APPLICATION_JSON));
+  }
+
+  private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+    try {
+      emitter.send(event);
+    } catch (IOException | IllegalStateException e) {
+      // client went away or the stream already ended
+      if (log.isDebugEnabled()) log.debug("dropping nav event subscriber: {}", e.getMessage());
+      unsubscribe(emitter);
+      emitter.completeWithError(e);
+    }
+  }
+
+  private void unsubscribe(SseEmitter emitter) {
+    if (subscribers.remove(emitter)) slots.release();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    feedExecutor.shutdownNow();
+    subscribers.forEach(SseEmitter::complete);
+  }
+}
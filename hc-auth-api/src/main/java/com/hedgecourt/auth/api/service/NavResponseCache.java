@@ -0,0 +1,142 @@
+package com.hedgecourt.auth.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.hedgecourt.auth.api.datasource.HcRoutingDataSource;
+import com.hedgecourt.auth.api.dto.NavItemDto;
+import com.hedgecourt.auth.api.dto.NavTreeNodeDto;
+import com.hedgecourt.auth.api.event.NavChangedEvent;
+import com.hedgecourt.spring.lib.json.HcObjectWriters;
+import com.hedgecourt.spring.lib.model.HcScopeSet;
+import com.hedgecourt.spring.lib.model.HcSerializedBody;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the /nav response for each audience as pre-serialized bytes, so steady-state nav traffic
+ * does no database work and no JSON serialization. Authenticated audiences are keyed by the part of
+ * the user's scopes that some nav item requires, so users who differ only in unrelated scopes share
+ * an entry. Everything is dropped together once a nav change commits.
+ */
+@Service
+public class NavResponseCache {
+  private static final Logger log = LoggerFactory.getLogger(NavResponseCache.class);
+
+  private static final String ANONYMOUS = "anonymous";
+
+  private final NavService navService;
+  private final HcObjectWriters objectWriters;
+
+  /**
+   * Replaced on every change. A render that raced with the change lands in the retired generation
+   * and is never served.
+   */
+  private final AtomicReference<Generation> generation = new AtomicReference<>(new Generation());
+
+  public NavResponseCache(NavService navService, HcObjectWriters objectWriters) {
+    this.navService = navService;
+    this.objectWriters = objectWriters;
+  }
+
+  /** Top-level nav items that need no scopes, as served to anonymous users. */
+  public HcSerializedBody anonymous() {
+    Generation current = generation.get();
+    return current.render(new Key(View.LIST, ANONYMOUS), () -> current.index().anonymous());
+  }
+
+  /**
+   * The nav items visible to a user holding {@code scopes}. The scopes are resolved after the index
+   * is loaded, which registers the scopes nav items require, so a token scope that was not yet
+   * registered when the token was read still counts.
+   */
+  public HcSerializedBody visibleTo(Supplier<HcScopeSet> scopes) {
+    Generation current = generation.get();
+    NavVisibilityIndex index = current.index();
+    HcScopeSet relevant = index.relevant(scopes.get());
+    return current.render(new Key(View.LIST, relevant), () -> index.visibleTo(relevant));
+  }
+
+  /** {@link #anonymous()} nested under parents. */
+  public HcSerializedBody anonymousTree() {
+    Generation current = generation.get();
+    return current.render(new Key(View.TREE, ANONYMOUS), () -> current.index().anonymousTree());
+  }
+
+  /** {@link #visibleTo(Supplier)} nested under parents. */
+  public HcSerializedBody treeVisibleTo(Supplier<HcScopeSet> scopes) {
+    Generation current = generation.get();
+    NavVisibilityIndex index = current.index();
+    HcScopeSet relevant = index.relevant(scopes.get());
+    return current.render(new Key(View.TREE, relevant), () -> index.treeVisibleTo(relevant));
+  }
+
+  private HcSerializedBody serialize(Key key, List<?> nav) {
+    try {
+      HcSerializedBody body =
+          HcSerializedBody.of(
+              objectWriters.writerForListOf(key.view().elementType()).writeValueAsBytes(nav));
+      if (log.isDebugEnabled())
+        log.debug(
+            "rendered nav {} for audience={} items={} bytes={} etag={}",
+            key.view(),
+            key.audience(),
+            nav.size(),
+            body.bytes().length,
+            body.etag());
+      return body;
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot serialize nav " + key, e);
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onNavChanged(NavChangedEvent event) {
+    if (log.isDebugEnabled())
+      log.debug("nav changed, items={}, dropping rendered nav responses", event.itemCount());
+    generation.set(new Generation());
+  }
+
+  private enum View {
+    LIST(NavItemDto.class),
+    TREE(NavTreeNodeDto.class);
+
+    private final Class<?> elementType;
+
+    View(Class<?> elementType) {
+      this.elementType = elementType;
+    }
+
+    Class<?> elementType() {
+      return elementType;
+    }
+  }
+
+  /**
+   * @param audience {@link #ANONYMOUS} or the relevant scopes of an authenticated user
+   */
+  private record Key(View view, Object audience) {}
+
+  /** The nav as loaded once from the database, and every response rendered from it. */
+  private final class Generation {
+    private final ConcurrentMap<Key, HcSerializedBody> bodies = new ConcurrentHashMap<>();
+    private NavVisibilityIndex index;
+
+    synchronized NavVisibilityIndex index() {
+      // a new generation follows a nav change, which a lagging replica may not have yet
+      if (index == null)
+        index = HcRoutingDataSource.readFromPrimary(navService::loadVisibilityIndex);
+      return index;
+    }
+
+    HcSerializedBody render(Key key, Supplier<List<?>> nav) {
+      // computeIfAbsent also makes concurrent misses for one key wait for a single render
+      return bodies.computeIfAbsent(key, k -> serialize(k, nav.get()));
+    }
+  }
+}
@@ -1,12 +1,24 @@
 package com.hedgecourt.auth.api.service;
 
 import com.hedgecourt.auth.api.dto.NavItemDto;
+import com.hedgecourt.auth.api.error.InvalidNavItemException;
+import com.hedgecourt.auth.api.event.NavChangedEvent;
 import com.hedgecourt.auth.api.model.NavItem;
 import com.hedgecourt.auth.api.model.NavItemRepository;
-import com.hedgecourt.auth.api.model.Scope;
+import com.hedgecourt.spring.lib.model.HcScopeSet;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,9 +27,19 @@ public class NavService {
   private static final Logger log = LoggerFactory.getLogger(NavService.class);
 
   private final NavItemRepository navItemRepository;
+  private final EntityManager entityManager;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public NavService(NavItemRepository navItemRepository) {
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+  private int jdbcBatchSize;
+
+  public NavService(
+      NavItemRepository navItemRepository,
+      EntityManager entityManager,
+      ApplicationEventPublisher eventPublisher) {
     this.navItemRepository = navItemRepository;
+    this.entityManager = entityManager;
+    this.eventPublisher = eventPublisher;
   }
 
   private NavItemDto mapToNavItemDto(NavItem navItem) {
@@ -28,52 +50,76 @@ public class NavService {
         navItem.getDescription(),
         navItem.getPublicUrl(),
         navItem.getPath(),
-        navItem.getSortOrder());
+        navItem.getSortOrder(),
+        navItem.getRequiredScopes());
   }
 
   /**
    * Returns all NavItems in the repository, regardless of the authorities of the user making the
    * request. This is an admin function.
    *
-   * @return all NavItems in the repository
+   * @return all NavItems in the repository, ordered by sortOrder
    */
+  @Transactional(readOnly = true)
   public List<NavItemDto> list() {
-    return navItemRepository.findAll().stream().map(this::mapToNavItemDto).toList();
+    return navItemRepository.findAllOrderedBySortOrder().stream()
+        .map(this::mapToNavItemDto)
+        .toList();
   }
 
   /**
-   * Returns a list of NavItems the authUser has access to.
+   * Returns the NavItems anonymous users get to see: top-level items that need no scopes.
    *
-   * @param scopes list of Scopes assigned to the authUser
-   * @return list of NavItems the authUser has access to
+   * @return NavItems without a parent or required scopes
    */
-  public List<NavItemDto> listFilteredByAuthorities(List<Scope> scopes) {
-    // TODO implement nav item filtering by scopes
-    return list();
+  @Transactional(readOnly = true)
+  public List<NavItemDto> listAnonymous() {
+    return loadVisibilityIndex().anonymous();
+  }
+
+  /**
+   * Returns the NavItems a user holding {@code scopes} has access to. An item needs all of its
+   * required scopes and is hidden along with its parent.
+   *
+   * @param scopes scopes granted to the authUser
+   * @return NavItems the authUser has access to
+   */
+  @Transactional(readOnly = true)
+  public List<NavItemDto> listVisibleTo(HcScopeSet scopes) {
+    return loadVisibilityIndex().visibleTo(scopes);
   }
 
+  @Transactional(readOnly = true)
+  NavVisibilityIndex loadVisibilityIndex() {
+    return NavVisibilityIndex.of(list());
+  }
+
+  /**
+   * Deletes every NavItem with a fixed number of statements: the read that captures the returned
+   * DTOs, one UPDATE breaking the parent links and one DELETE.
+   *
+   * @return the deleted NavItems
+   */
   @Transactional
   public List<NavItemDto> bulkDelete() {
     if (log.isInfoEnabled()) log.info("bulk deleting all nav items");
     List<NavItemDto> existingItems = list();
 
-    // Break child references for clean deletes (no fk violations)
-    navItemRepository
-        .findAll()
-        .forEach(
-            navItem -> {
-              navItem.setChildOf(null);
-              navItemRepository.save(navItem);
-            });
-
-    navItemRepository.deleteAll();
+    // bulk statements bypass the persistence context, drop the entities list() just loaded
+    entityManager.clear();
+    navItemRepository.unlinkAll();
+    navItemRepository.deleteAllInBatch();
 
+    eventPublisher.publishEvent(new NavChangedEvent(existingItems.size()));
     return existingItems;
   }
 
   @Transactional
   public List<NavItemDto> bulkAdd(List<NavItemDto> navItemDtos, boolean deleteEnabled) {
     if (log.isInfoEnabled()) log.info("bulk adding nav items");
+    long startNanos = System.nanoTime();
+
+    List<NavItem> ordered = topologicalOrder(navItemDtos);
 
     if (deleteEnabled) {
       bulkDelete();
@@ -86,39 +132,84 @@ public class NavService {
       }
     }
 
-    // Validate no circular references
+    // persist() rather than save(): ids are assigned, so save() would merge and issue a SELECT per
+    // item. Parents come first, so flushing every batch keeps the fk satisfied.
+    for (int i = 0; i < ordered.size(); i++) {
+      entityManager.persist(ordered.get(i));
+      if ((i + 1) % jdbcBatchSize == 0) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    }
+    entityManager.flush();
+    entityManager.clear();
+
+    if (log.isInfoEnabled())
+      log.info(
+          "bulk added {} nav items in {} ms",
+          ordered.size(),
+          (System.nanoTime() - startNanos) / 1_000_000);
+
+    eventPublisher.publishEvent(new NavChangedEvent(ordered.size()));
+
+    return list();
+  }
+
+  /**
+   * Resolves the parent of every item within the import and orders the items so each parent
+   * precedes its children (Kahn's algorithm).
+   *
+   * @throws InvalidNavItemException on a missing or duplicate id, a parent that is not part of the
+   *     import, or a cycle of any length
+   */
+  private List<NavItem> topologicalOrder(List<NavItemDto> navItemDtos) {
+    Map<Long, NavItem> itemsById = new HashMap<>();
     for (NavItemDto dto : navItemDtos) {
-      if (dto.getChildOf() != null && dto.getChildOf().equals(dto.getId()))
-        throw new IllegalArgumentException(
-            String.format("NavItem child cannot reference self: %d", dto.getId()));
+      if (dto.getId() == null) throw new InvalidNavItemException("NavItem id is required");
+      NavItem item =
+          NavItem.builder()
+              .id(dto.getId())
+              .title(dto.getTitle())
+              .description(dto.getDescription())
+              .publicUrl(dto.getPublicUrl())
+              .path(dto.getPath())
+              .sortOrder(dto.getSortOrder())
+              .requiredScopes(dto.getRequiredScopes())
+              .build();
+      if (itemsById.putIfAbsent(dto.getId(), item) != null)
+        throw new InvalidNavItemException(String.format("Duplicate NavItem id: %d", dto.getId()));
     }
 
+    Map<Long, List<NavItem>> childrenByParentId = new HashMap<>();
+    Deque<NavItem> ready = new ArrayDeque<>();
     for (NavItemDto dto : navItemDtos) {
-      NavItem savedItem =
-          navItemRepository.save(
-              NavItem.builder()
-                  .id(dto.getId())
-                  .childOf(
-                      dto.getChildOf() == null || dto.getChildOf() == 0
-                          ? null
-                          : navItemRepository
-                              .findById(dto.getChildOf())
-                              .orElseThrow(
-                                  () ->
-                                      new IllegalArgumentException(
-                                          String.format(
-                                              "Invalid child: id=%d childOf=%d",
-                                              dto.getId(), dto.getChildOf()))))
-                  .title(dto.getTitle())
-                  .description(dto.getDescription())
-                  .publicUrl(dto.getPublicUrl())
-                  .path(dto.getPath())
-                  .sortOrder(dto.getSortOrder())
-                  .build());
-
-      if (log.isDebugEnabled()) log.debug("Saved NavItem: {}", savedItem);
+      NavItem item = itemsById.get(dto.getId());
+      if (dto.getChildOf() == null || dto.getChildOf() == 0) {
+        ready.add(item);
+        continue;
+      }
+      NavItem parent = itemsById.get(dto.getChildOf());
+      if (parent == null)
+        throw new InvalidNavItemException(
+            String.format("Invalid child: id=%d childOf=%d", dto.getId(), dto.getChildOf()));
+      item.setChildOf(parent);
+      childrenByParentId.computeIfAbsent(parent.getId(), id -> new ArrayList<>()).add(item);
     }
 
-    return list();
+    // every item has at most one parent, so it becomes ready as soon as its parent is placed
+    List<NavItem> ordered = new ArrayList<>(itemsById.size());
+    while (!ready.isEmpty()) {
+      NavItem item = ready.poll();
+      ordered.add(item);
+      ready.addAll(childrenByParentId.getOrDefault(item.getId(), List.of()));
+    }
+
+    if (ordered.size() < itemsById.size()) {
+      Set<Long> cyclic = new TreeSet<>(itemsById.keySet());
+      ordered.forEach(item -> cyclic.remove(item.getId()));
+      throw new InvalidNavItemException(
+          String.format("NavItem parent references form a cycle, ids: %s", cyclic));
+    }
+    return ordered;
   }
 }
@@ -0,0 +1,137 @@
+package com.hedgecourt.auth.api.service;
+
+import com.hedgecourt.auth.api.dto.NavItemDto;
+import com.hedgecourt.auth.api.dto.NavTreeNodeDto;
+import com.hedgecourt.spring.lib.model.HcScopeSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Flat, immutable view of the nav items with the scopes each one needs. An item's mask is its own
+ * required scopes combined with those of all its ancestors, so hiding a parent hides its subtree
+ * and filtering for a user is one containment test per item.
+ */
+final class NavVisibilityIndex {
+
+  private static final int NO_PARENT = -1;
+
+  private final NavItemDto[] items;
+
+  /** Position of each item's parent in {@link #items}, or {@value #NO_PARENT}. */
+  private final int[] parents;
+
+  private final HcScopeSet[] masks;
+
+  /** Every scope some item requires, the only part of a user's scopes that affects the result. */
+  private final HcScopeSet relevantScopes;
+
+  private NavVisibilityIndex(
+      NavItemDto[] items, int[] parents, HcScopeSet[] masks, HcScopeSet relevantScopes) {
+    this.items = items;
+    this.parents = parents;
+    this.masks = masks;
+    this.relevantScopes = relevantScopes;
+  }
+
+  /**
+   * @param navItems items in display order, childOf 0 or null marks a top-level item
+   */
+  static NavVisibilityIndex of(List<NavItemDto> navItems) {
+    NavItemDto[] items = navItems.toArray(new NavItemDto[0]);
+    Map<Long, Integer> positions = new HashMap<>();
+    for (int i = 0; i < items.length; i++) positions.put(items[i].getId(), i);
+
+    int[] parents = new int[items.length];
+    for (int i = 0; i < items.length; i++) {
+      Long parentId = items[i].getChildOf();
+      Integer parent = parentId == null || parentId == 0 ? null : positions.get(parentId);
+      parents[i] = parent == null ? NO_PARENT : parent;
+    }
+
+    // parent before child is not guaranteed here, so resolve each chain upwards once and reuse it
+    HcScopeSet[] masks = new HcScopeSet[items.length];
+    HcScopeSet relevantScopes = HcScopeSet.EMPTY;
+    List<Integer> chain = new ArrayList<>();
+    for (int i = 0; i < items.length; i++) {
+      int current = i;
+      while (current != NO_PARENT && masks[current] == null) {
+        chain.add(current);
+        if (chain.size() > items.length)
+          throw new IllegalStateException("NavItem parent references form a cycle");
+        current = parents[current];
+      }
+      HcScopeSet inherited = current != NO_PARENT ? masks[current] : HcScopeSet.EMPTY;
+      for (int c = chain.size() - 1; c >= 0; c--) {
+        int position = chain.get(c);
+        HcScopeSet own =
+            items[position].getRequiredScopes() == null
+                ? HcScopeSet.EMPTY
+                : HcScopeSet.of(items[position].getRequiredScopes());
+        relevantScopes = relevantScopes.union(own);
+        inherited = inherited.union(own);
+        masks[position] = inherited;
+      }
+      chain.clear();
+    }
+    return new NavVisibilityIndex(items, parents, masks, relevantScopes);
+  }
+
+  /**
+   * @return the part of {@code scopes} that changes what is visible, users with equal relevant
+   *     scopes see the same nav
+   */
+  HcScopeSet relevant(HcScopeSet scopes) {
+    return scopes.intersect(relevantScopes);
+  }
+
+  List<NavItemDto> visibleTo(HcScopeSet scopes) {
+    return list(i -> scopes.containsAll(masks[i]));
+  }
+
+  /** Top-level items that need no scopes. */
+  List<NavItemDto> anonymous() {
+    return list(this::anonymousVisible);
+  }
+
+  List<NavTreeNodeDto> treeVisibleTo(HcScopeSet scopes) {
+    return tree(i -> scopes.containsAll(masks[i]));
+  }
+
+  List<NavTreeNodeDto> anonymousTree() {
+    return tree(this::anonymousVisible);
+  }
+
+  private boolean anonymousVisible(int position) {
+    return parents[position] == NO_PARENT && masks[position].isEmpty();
+  }
+
+  private List<NavItemDto> list(IntPredicate visible) {
+    List<NavItemDto> list = new ArrayList<>();
+    for (int i = 0; i < items.length; i++) {
+      if (visible.test(i)) list.add(items[i]);
+    }
+    return list;
+  }
+
+  /**
+   * Nests the visible items under their parents in two passes over the flat arrays. Siblings keep
+   * the order of the items, a visible item's parent is always visible too.
+   */
+  private List<NavTreeNodeDto> tree(IntPredicate visible) {
+    NavTreeNodeDto[] nodes = new NavTreeNodeDto[items.length];
+    for (int i = 0; i < items.length; i++) {
+      if (visible.test(i)) nodes[i] = NavTreeNodeDto.of(items[i]);
+    }
+
+    List<NavTreeNodeDto> roots = new ArrayList<>();
+    for (int i = 0; i < items.length; i++) {
+      if (nodes[i] == null) continue;
+      if (parents[i] == NO_PARENT) roots.add(nodes[i]);
+      else nodes[parents[i]].getChildren().add(nodes[i]);
+    }
+    return roots;
+  }
+}
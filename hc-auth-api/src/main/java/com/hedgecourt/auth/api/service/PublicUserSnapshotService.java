@@ -0,0 +1,118 @@
+package com.hedgecourt.auth.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.hedgecourt.auth.api.datasource.HcRoutingDataSource;
+import com.hedgecourt.auth.api.event.UserChangedEvent;
+import com.hedgecourt.spring.lib.dto.UserDto;
+import com.hedgecourt.spring.lib.json.HcObjectWriters;
+import com.hedgecourt.spring.lib.model.HcSerializedBody;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the public user list as a pre-serialized snapshot, so anonymous traffic on /publicUsers
+ * never reaches the database. The snapshot is rebuilt in the background after users change; readers
+ * keep getting the previous snapshot until the new one is ready.
+ */
+@Service
+public class PublicUserSnapshotService {
+  private static final Logger log = LoggerFactory.getLogger(PublicUserSnapshotService.class);
+
+  public static final String PUBLIC_SCOPE = "user:public";
+
+  private final UserService userService;
+  private final HcObjectWriters objectWriters;
+
+  private final ExecutorService rebuildExecutor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "public-user-snapshot");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /** True while a rebuild is queued but not yet started, further requests piggyback on it. */
+  private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+  private final AtomicReference<HcSerializedBody> snapshot = new AtomicReference<>();
+
+  public PublicUserSnapshotService(UserService userService, HcObjectWriters objectWriters) {
+    this.userService = userService;
+    this.objectWriters = objectWriters;
+  }
+
+  public HcSerializedBody getSnapshot() {
+    HcSerializedBody current = snapshot.get();
+    if (current == null) {
+      // first request before the startup rebuild finished, build inline just this once
+      synchronized (this) {
+        current = snapshot.updateAndGet(existing -> existing == null ? build() : existing);
+      }
+    }
+    return current;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    requestRebuild();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    if (log.isDebugEnabled()) log.debug("users changed {}, rebuilding snapshot", event.usernames());
+    requestRebuild();
+  }
+
+  /**
+   * Schedules a rebuild unless one is already queued. The pending flag is cleared when the rebuild
+   * starts, so a change that lands mid-rebuild still gets a fresh snapshot afterwards.
+   */
+  void requestRebuild() {
+    if (rebuildPending.compareAndSet(false, true)) {
+      rebuildExecutor.execute(
+          () -> {
+            rebuildPending.set(false);
+            try {
+              snapshot.set(build());
+            } catch (RuntimeException e) {
+              log.error("Failed rebuilding public user snapshot, keeping the previous one", e);
+            }
+          });
+    }
+  }
+
+  private HcSerializedBody build() {
+    // rebuilds follow a user change, which a lagging replica may not have yet
+    List<UserDto> publicUsers =
+        HcRoutingDataSource.readFromPrimary(() -> userService.listByScopeName(PUBLIC_SCOPE));
+    try {
+      HcSerializedBody body =
+          HcSerializedBody.of(
+              objectWriters.writerForListOf(UserDto.class).writeValueAsBytes(publicUsers));
+      if (log.isInfoEnabled())
+        log.info(
+            "built public user snapshot, users={} bytes={} etag={}",
+            publicUsers.size(),
+            body.bytes().length,
+            body.etag());
+      return body;
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot serialize public user snapshot", e);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    rebuildExecutor.shutdownNow();
+  }
+}
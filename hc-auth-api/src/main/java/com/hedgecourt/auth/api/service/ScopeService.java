@@ -10,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class ScopeService {
@@ -22,6 +23,7 @@ public class ScopeService {
     this.scopeRepository = scopeRepository;
   }
 
+  @Transactional(readOnly = true)
   public List<Scope> list() {
     return scopeRepository.findAll();
   }
@@ -0,0 +1,317 @@
+package com.hedgecourt.auth.api.service;
+
+import com.hedgecourt.auth.api.datasource.HcRoutingDataSource;
+import com.hedgecourt.auth.api.dto.UserSearchResultDto;
+import com.hedgecourt.auth.api.event.UserChangedEvent;
+import com.hedgecourt.auth.api.model.UserRepository;
+import com.hedgecourt.auth.api.model.UserView;
+import com.hedgecourt.spring.lib.dto.UserDto;
+import com.hedgecourt.spring.lib.model.HcScopeRegistry;
+import com.hedgecourt.spring.lib.model.HcScopeSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory search over username, email, firstname and lastname. The index is loaded once at
+ * startup and then patched per user from {@link UserChangedEvent}, so searches never touch the
+ * database.
+ *
+ * <p>Every indexed user gets a dense int id. Substring queries look up the id postings of the
+ * query's bigrams or trigrams and verify only the users in the rarest one; single characters fall
+ * back to a scan. Scope filters are bit tests and run before any string comparison. Prefix queries
+ * walk a sorted map of field values. Ids are never reused, an update retires the old id and the
+ * index is compacted once retired ids outnumber live ones.
+ */
+@Service
+public class UserSearchService {
+  private static final Logger log = LoggerFactory.getLogger(UserSearchService.class);
+
+  public enum Match {
+    PREFIX,
+    CONTAINS
+  }
+
+  public static final int MAX_PAGE_SIZE = 200;
+  private static final int RELOAD_CHUNK = 1000;
+
+  private static final Comparator<Entry> BY_USERNAME =
+      Comparator.comparing(entry -> entry.user().getUsername());
+
+  private record Entry(UserDto user, List<String> fields, HcScopeSet scopes) {
+    boolean contains(String query) {
+      for (String field : fields) if (field.contains(query)) return true;
+      return false;
+    }
+  }
+
+  /** Sorted, growable int array of entry ids. New ids are always the largest, so add appends. */
+  private static final class Posting {
+    private int[] ids = new int[4];
+    private int size;
+
+    void add(int id) {
+      if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+      ids[size++] = id;
+    }
+
+    boolean remove(int id) {
+      int i = Arrays.binarySearch(ids, 0, size, id);
+      if (i < 0) return false;
+      System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+      size--;
+      return true;
+    }
+
+    void forEach(IntConsumer action) {
+      for (int i = 0; i < size; i++) action.accept(ids[i]);
+    }
+  }
+
+  private final UserRepository userRepository;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final List<Entry> entries = new ArrayList<>();
+  private final Map<String, Integer> idsByUsername = new HashMap<>();
+  private final Map<String, Posting> grams = new HashMap<>();
+  private final NavigableMap<String, Posting> values = new TreeMap<>();
+
+  public UserSearchService(UserRepository userRepository) {
+    this.userRepository = userRepository;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    List<UserView> views = HcRoutingDataSource.readFromPrimary(userRepository::findAllViews);
+    lock.writeLock().lock();
+    try {
+      clear();
+      views.forEach(this::put);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    if (log.isInfoEnabled()) log.info("user search index loaded, users={}", views.size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    // one query per chunk rather than per user, scope grants can touch thousands of users
+    List<String> usernames = new ArrayList<>(event.usernames());
+    Map<String, UserView> changed = new HashMap<>();
+    for (int from = 0; from < usernames.size(); from += RELOAD_CHUNK) {
+      List<String> chunk = usernames.subList(from, Math.min(from + RELOAD_CHUNK, usernames.size()));
+      // the change just committed, a lagging replica may not have it yet
+      HcRoutingDataSource.readFromPrimary(() -> userRepository.findViewsByUsernameIn(chunk))
+          .forEach(view -> changed.put(view.username(), view));
+    }
+
+    lock.writeLock().lock();
+    try {
+      for (String username : event.usernames()) {
+        remove(username);
+        UserView view = changed.get(username);
+        if (view != null) put(view);
+      }
+      if (entries.size() > 2 * idsByUsername.size() + 1024) compact();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @param query text to match, blank matches every user
+   * @param match prefix or substring matching
+   * @param requiredScopes users must hold all of these
+   * @param page zero based page
+   * @param size page size, capped at {@link #MAX_PAGE_SIZE}
+   * @return the requested page, ordered by username
+   */
+  public UserSearchResultDto search(
+      String query, Match match, Collection<String> requiredScopes, int page, int size) {
+    long startNanos = System.nanoTime();
+    int pageNumber = Math.max(0, page);
+    int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    int limit = pageNumber * pageSize + pageSize;
+    String q = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+
+    // the page is the head of a bounded max-heap, so matching is O(n log limit) with no full sort
+    Queue<Entry> head = new PriorityQueue<>(BY_USERNAME.reversed());
+    long[] total = {0};
+
+    // a scope nobody was ever granted cannot match, and must not be interned from user input
+    boolean scopesKnown =
+        requiredScopes == null
+            || requiredScopes.stream().allMatch(scope -> HcScopeRegistry.lookup(scope) >= 0);
+    if (scopesKnown) {
+      HcScopeSet required = HcScopeSet.of(requiredScopes);
+      lock.readLock().lock();
+      try {
+        forEachCandidate(
+            q,
+            match,
+            id -> {
+              Entry entry = entries.get(id);
+              if (entry == null || !entry.scopes().containsAll(required)) return;
+              if (match != Match.PREFIX && !q.isEmpty() && !entry.contains(q)) return;
+              total[0]++;
+              if (head.size() < limit) {
+                head.add(entry);
+              } else if (BY_USERNAME.compare(entry, head.peek()) < 0) {
+                head.poll();
+                head.add(entry);
+              }
+            });
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    List<Entry> ordered = new ArrayList<>(head);
+    ordered.sort(BY_USERNAME);
+    List<UserDto> users =
+        ordered.stream().skip((long) pageNumber * pageSize).map(Entry::user).toList();
+
+    if (log.isDebugEnabled())
+      log.debug(
+          "user search q='{}' match={} scopes={} total={} micros={}",
+          q,
+          match,
+          requiredScopes,
+          total[0],
+          (System.nanoTime() - startNanos) / 1_000);
+
+    return UserSearchResultDto.builder()
+        .page(pageNumber)
+        .size(pageSize)
+        .total(total[0])
+        .users(users)
+        .build();
+  }
+
+  /**
+   * Feeds ids that may match the text part of the query, a superset for substring queries, which
+   * the caller verifies. Caller holds the read lock.
+   */
+  private void forEachCandidate(String q, Match match, IntConsumer action) {
+    if (q.isEmpty() || (match != Match.PREFIX && q.length() < 2)) {
+      for (int id = 0; id < entries.size(); id++) action.accept(id);
+      return;
+    }
+
+    if (match == Match.PREFIX) {
+      BitSet seen = new BitSet(entries.size());
+      for (Posting posting : values.subMap(q, true, q + Character.MAX_VALUE, false).values())
+        posting.forEach(
+            id -> {
+              if (!seen.get(id)) {
+                seen.set(id);
+                action.accept(id);
+              }
+            });
+      return;
+    }
+
+    // the rarest gram bounds the candidates; verifying them beats intersecting the other postings
+    Posting rarest = null;
+    int n = Math.min(q.length(), 3);
+    for (int i = 0; i + n <= q.length(); i++) {
+      Posting posting = grams.get(q.substring(i, i + n));
+      if (posting == null) return;
+      if (rarest == null || posting.size < rarest.size) rarest = posting;
+    }
+    rarest.forEach(action);
+  }
+
+  private void put(UserView view) {
+    List<String> fields =
+        Stream.of(view.username(), view.email(), view.firstname(), view.lastname())
+            .filter(f -> f != null && !f.isEmpty())
+            .map(f -> f.toLowerCase(Locale.ROOT))
+            .distinct()
+            .toList();
+    Set<String> scopes = view.scopes();
+    Entry entry =
+        new Entry(
+            new UserDto(view.username(), view.firstname(), view.lastname(), view.email(), scopes),
+            fields,
+            HcScopeSet.of(scopes));
+    int id = entries.size();
+    entries.add(entry);
+    idsByUsername.put(view.username(), id);
+
+    Set<String> entryGrams = new LinkedHashSet<>();
+    for (String field : fields) {
+      values.computeIfAbsent(field, k -> new Posting()).add(id);
+      entryGrams.addAll(gramsOf(field));
+    }
+    for (String gram : entryGrams) grams.computeIfAbsent(gram, k -> new Posting()).add(id);
+  }
+
+  private void remove(String username) {
+    Integer id = idsByUsername.remove(username);
+    if (id == null) return;
+    Entry entry = entries.set(id, null);
+    for (String field : entry.fields()) {
+      removePosting(values, field, id);
+      for (String gram : gramsOf(field)) removePosting(grams, gram, id);
+    }
+  }
+
+  private void compact() {
+    List<Entry> live = entries.stream().filter(e -> e != null).toList();
+    clear();
+    for (Entry entry : live) {
+      UserDto user = entry.user();
+      put(
+          new UserView(
+              user.getUsername(),
+              user.getFirstname(),
+              user.getLastname(),
+              user.getEmail(),
+              String.join(" ", user.getScopes())));
+    }
+  }
+
+  private void clear() {
+    entries.clear();
+    idsByUsername.clear();
+    grams.clear();
+    values.clear();
+  }
+
+  private static void removePosting(Map<String, Posting> index, String key, int id) {
+    Posting posting = index.get(key);
+    if (posting != null && posting.remove(id) && posting.size == 0) index.remove(key);
+  }
+
+  /** Bigrams and trigrams of {@code text}, so a query of two characters has a posting too. */
+  private static Set<String> gramsOf(String text) {
+    Set<String> result = new LinkedHashSet<>();
+    int n = text.length() < 3 ? 2 : 3;
+    for (int i = 0; i + n <= text.length(); i++) result.add(text.substring(i, i + n));
+    if (n == 3) for (int i = 0; i + 2 <= text.length(); i++) result.add(text.substring(i, i + 2));
+    return result;
+  }
+}
@@ -1,42 +1,98 @@
 package com.hedgecourt.auth.api.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hedgecourt.auth.api.dto.UserBulkImportErrorDto;
+import com.hedgecourt.auth.api.dto.UserBulkImportResultDto;
 import com.hedgecourt.auth.api.dto.UserCreateDto;
+import com.hedgecourt.auth.api.dto.UserScopeChangeDto;
+import com.hedgecourt.auth.api.dto.UserScopeChangeResultDto;
 import com.hedgecourt.auth.api.dto.UserUpdateDto;
 import com.hedgecourt.auth.api.error.DuplicateUsernameException;
 import com.hedgecourt.auth.api.error.InvalidScopeException;
+import com.hedgecourt.auth.api.error.UserVersionMismatchException;
+import com.hedgecourt.auth.api.event.UserChangedEvent;
 import com.hedgecourt.auth.api.model.Scope;
 import com.hedgecourt.auth.api.model.ScopeRepository;
 import com.hedgecourt.auth.api.model.User;
+import com.hedgecourt.auth.api.model.UserBulkImport;
 import com.hedgecourt.auth.api.model.UserRepository;
+import com.hedgecourt.auth.api.model.UserView;
+import com.hedgecourt.auth.api.model.VersionedUser;
 import com.hedgecourt.spring.lib.dto.UserDto;
 import com.hedgecourt.spring.lib.error.UserNotFoundException;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class UserService implements UserDetailsService {
   private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
+  /** Keeps IN lists within what every database accepts as bind parameters. */
+  static final int SCOPE_CHANGE_CHUNK = 1000;
+
   private final UserRepository userRepository;
   private final ScopeRepository scopeRepository;
   private final PasswordEncoder passwordEncoder;
+  private final EntityManager entityManager;
+  private final Validator validator;
+  private final ObjectMapper objectMapper;
+  private final ApplicationEventPublisher eventPublisher;
+
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+  private int jdbcBatchSize;
+
+  @Value("${hc.auth.export.flush-rows:500}")
+  private int exportFlushRows;
 
   public UserService(
       UserRepository userRepository,
       ScopeRepository scopeRepository,
-      PasswordEncoder passwordEncoder) {
+      PasswordEncoder passwordEncoder,
+      EntityManager entityManager,
+      Validator validator,
+      ObjectMapper objectMapper,
+      ApplicationEventPublisher eventPublisher) {
     this.userRepository = userRepository;
     this.scopeRepository = scopeRepository;
     this.passwordEncoder = passwordEncoder;
+    this.entityManager = entityManager;
+    this.validator = validator;
+    this.objectMapper = objectMapper;
+    this.eventPublisher = eventPublisher;
   }
 
   private UserDto mapToUserResponseDto(User user) {
@@ -48,6 +104,11 @@ public class UserService implements UserDetailsService {
         user.getScopes().stream().map(Scope::getName).collect(Collectors.toSet()));
   }
 
+  private UserDto mapToUserResponseDto(UserView user) {
+    return new UserDto(
+        user.username(), user.firstname(), user.lastname(), user.email(), user.scopes());
+  }
+
   private Set<Scope> validateUserScopes(Set<String> requestedUserScopes)
       throws InvalidScopeException {
     Set<Scope> validUserScopes =
@@ -65,22 +126,82 @@ public class UserService implements UserDetailsService {
     return validUserScopes;
   }
 
+  // Read paths select UserView projections, nothing enters the persistence context, so there is
+  // nothing to dirty check and the password column never leaves the database.
+
+  @Transactional(readOnly = true)
   public List<UserDto> list() {
-    return userRepository.findAll().stream()
+    return userRepository.findAllViews().stream()
         .map(this::mapToUserResponseDto)
         .collect(Collectors.toList());
   }
 
+  @Transactional(readOnly = true)
   public List<UserDto> listByScopeName(String scopeName) {
-    return userRepository.findAllByScopeName(scopeName).stream()
+    return userRepository.findAllViewsByScopeName(scopeName).stream()
         .map(this::mapToUserResponseDto)
         .collect(Collectors.toList());
   }
 
+  @Transactional(readOnly = true)
   public UserDto retrieve(String username) throws UserNotFoundException {
     if (log.isDebugEnabled()) log.debug("UserService.retrieve({})", username);
     return mapToUserResponseDto(
-        userRepository.findById(username).orElseThrow(() -> new UserNotFoundException(username)));
+        userRepository
+            .findViewByUsername(username)
+            .orElseThrow(() -> new UserNotFoundException(username)));
+  }
+
+  /**
+   * Writes every user to {@code out} as newline delimited JSON, in username order. Rows are read
+   * from a database cursor and written as they arrive, output is flushed every {@code
+   * hc.auth.export.flush-rows} rows, so memory stays flat regardless of directory size. The stream
+   * is not closed.
+   *
+   * @param out destination, typically the servlet response
+   * @return number of users written
+   */
+  @Transactional(readOnly = true)
+  public long exportNdjson(OutputStream out) throws IOException {
+    ObjectWriter rowWriter =
+        objectMapper
+            .writerFor(UserDto.class)
+            .without(SerializationFeature.INDENT_OUTPUT)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .withRootValueSeparator("\n");
+
+    long count = 0;
+    try (Stream<UserView> views = userRepository.streamAllViews();
+        JsonGenerator generator =
+            objectMapper
+                .getFactory()
+                .createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+      Iterator<UserView> rows = views.iterator();
+      while (rows.hasNext()) {
+        rowWriter.writeValue(generator, mapToUserResponseDto(rows.next()));
+        count++;
+        if (count % exportFlushRows == 0) {
+          generator.flush();
+          // projections are not managed, this only guards against anything the session picked up
+          entityManager.clear();
+        }
+      }
+      if (count > 0) generator.writeRaw('\n');
+      generator.flush();
+    }
+    return count;
+  }
+
+  /**
+   * Version-only lookup for conditional requests, neither the user row nor its scopes are loaded.
+   *
+   * @param username user to look up
+   * @return the current version, empty if the user does not exist
+   */
+  @Transactional(readOnly = true)
+  public Optional<Long> retrieveVersion(String username) {
+    return userRepository.findVersionByUsername(username);
   }
 
   @Override
@@ -114,10 +235,220 @@ public class UserService implements UserDetailsService {
             .password(passwordEncoder.encode(userDto.getPlaintextPassword()))
             .scopes(validateUserScopes(userDto.getScopes()))
             .build();
-    return mapToUserResponseDto(userRepository.save(user));
+    UserDto created = mapToUserResponseDto(userRepository.save(user));
+    eventPublisher.publishEvent(UserChangedEvent.of(created.getUsername()));
+    return created;
+  }
+
+  /**
+   * Bulk variant of {@link #create(UserCreateDto)} for onboarding. Each row is validated on its own
+   * and failures are reported per row instead of aborting the import. Scopes are resolved with one
+   * query, existing usernames are detected with one query, passwords are hashed in parallel and the
+   * surviving rows are inserted through JDBC batching in a single transaction.
+   *
+   * @param userDtos rows to import, not yet validated
+   * @return import summary including per-row errors and throughput
+   */
+  @Transactional
+  public UserBulkImportResultDto createBulk(List<UserCreateDto> userDtos) {
+    return createBulk(prepareBulk(userDtos));
+  }
+
+  /**
+   * Checks each row on its own, bean validation and usernames repeated within the request, without
+   * touching the database.
+   *
+   * @param userDtos rows to import, indexed by their position
+   */
+  public UserBulkImport prepareBulk(List<UserCreateDto> userDtos) {
+    long startNanos = System.nanoTime();
+    List<UserBulkImport.Row> rows = new ArrayList<>(userDtos.size());
+    for (int i = 0; i < userDtos.size(); i++) rows.add(new UserBulkImport.Row(i, userDtos.get(i)));
+    return prepareBulk(rows, userDtos.size(), new ArrayList<>(), startNanos);
   }
 
-  public UserDto update(String username, UserUpdateDto userDto) throws UserNotFoundException {
+  /**
+   * Same as {@link #prepareBulk(List)}, but reads one JSON user per line as the body arrives. Blank
+   * lines are skipped and lines that cannot be parsed are reported as row errors. Row indexes are
+   * zero-based line numbers in the input, blank lines included. Runs outside any transaction, so a
+   * slow upload does not hold a connection.
+   *
+   * @param ndjson newline delimited JSON, one UserCreateDto per line
+   */
+  public UserBulkImport readBulkNdjson(BufferedReader ndjson) throws IOException {
+    long startNanos = System.nanoTime();
+    ObjectReader rowReader = objectMapper.readerFor(UserCreateDto.class);
+    List<UserBulkImport.Row> rows = new ArrayList<>();
+    List<UserBulkImportErrorDto> errors = new ArrayList<>();
+
+    int index = 0;
+    for (String line = ndjson.readLine(); line != null; line = ndjson.readLine(), index++) {
+      if (line.isBlank()) continue;
+      try {
+        rows.add(new UserBulkImport.Row(index, rowReader.readValue(line)));
+      } catch (JsonProcessingException e) {
+        errors.add(
+            new UserBulkImportErrorDto(index, null, "Malformed row: " + e.getOriginalMessage()));
+      }
+    }
+
+    return prepareBulk(rows, rows.size() + errors.size(), errors, startNanos);
+  }
+
+  private UserBulkImport prepareBulk(
+      List<UserBulkImport.Row> rows,
+      int requested,
+      List<UserBulkImportErrorDto> errors,
+      long startNanos) {
+    List<UserBulkImport.Row> candidates = new ArrayList<>(rows.size());
+    Set<String> candidateUsernames = new HashSet<>();
+    for (UserBulkImport.Row row : rows) {
+      UserCreateDto dto = row.user();
+
+      Set<ConstraintViolation<UserCreateDto>> violations = validator.validate(dto);
+      if (!violations.isEmpty()) {
+        errors.add(
+            new UserBulkImportErrorDto(
+                row.index(),
+                dto.getUsername(),
+                violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "))));
+      } else if (!candidateUsernames.add(dto.getUsername())) {
+        errors.add(
+            new UserBulkImportErrorDto(
+                row.index(),
+                dto.getUsername(),
+                new DuplicateUsernameException(dto.getUsername()).getMessage()));
+      } else {
+        candidates.add(row);
+      }
+    }
+    return new UserBulkImport(candidates, requested, errors, startNanos);
+  }
+
+  /**
+   * Imports rows already checked by {@link #prepareBulk(List)} or {@link
+   * #readBulkNdjson(BufferedReader)}, only this part holds a connection and a transaction.
+   *
+   * @return import summary including per-row errors and throughput
+   */
+  @Transactional
+  public UserBulkImportResultDto createBulk(UserBulkImport bulk) {
+    List<UserBulkImportErrorDto> errors = new ArrayList<>(bulk.errors());
+    List<UserBulkImport.Row> candidates = new ArrayList<>(bulk.rows());
+    Set<String> candidateUsernames =
+        candidates.stream().map(row -> row.user().getUsername()).collect(Collectors.toSet());
+    Set<String> existingUsernames =
+        candidateUsernames.isEmpty()
+            ? Set.of()
+            : userRepository.findExistingUsernames(candidateUsernames);
+
+    Set<String> requestedScopes =
+        candidates.stream()
+            .map(row -> row.user().getScopes())
+            .filter(Objects::nonNull)
+            .flatMap(Set::stream)
+            .collect(Collectors.toSet());
+    Map<String, Scope> validScopes =
+        requestedScopes.isEmpty()
+            ? Map.of()
+            : scopeRepository.findAllByNameIn(requestedScopes).stream()
+                .collect(Collectors.toMap(Scope::getName, Function.identity()));
+
+    candidates.removeIf(
+        row -> {
+          UserCreateDto dto = row.user();
+          if (existingUsernames.contains(dto.getUsername())) {
+            errors.add(
+                new UserBulkImportErrorDto(
+                    row.index(),
+                    dto.getUsername(),
+                    new DuplicateUsernameException(dto.getUsername()).getMessage()));
+            return true;
+          }
+
+          Set<String> invalidScopes =
+              dto.getScopes() == null
+                  ? Set.of()
+                  : dto.getScopes().stream()
+                      .filter(scope -> !validScopes.containsKey(scope))
+                      .collect(Collectors.toSet());
+          if (!invalidScopes.isEmpty()) {
+            errors.add(
+                new UserBulkImportErrorDto(
+                    row.index(),
+                    dto.getUsername(),
+                    new InvalidScopeException(invalidScopes).getMessage()));
+            return true;
+          }
+          return false;
+        });
+
+    // BCrypt dominates the cost of an import, so spread it across cores before touching the db
+    List<User> users =
+        candidates.parallelStream()
+            .map(UserBulkImport.Row::user)
+            .map(
+                dto ->
+                    User.builder()
+                        .username(dto.getUsername())
+                        .firstname(dto.getFirstname())
+                        .lastname(dto.getLastname())
+                        .email(dto.getEmail())
+                        .password(passwordEncoder.encode(dto.getPlaintextPassword()))
+                        .scopes(
+                            dto.getScopes() == null
+                                ? new HashSet<>()
+                                : dto.getScopes().stream()
+                                    .map(validScopes::get)
+                                    .collect(Collectors.toSet()))
+                        .build())
+            .toList();
+
+    // persist() rather than save(): the username is an assigned id, so save() would merge and
+    // issue a SELECT per row. Flushing every batch lets hibernate send JDBC batches and keeps the
+    // persistence context small.
+    for (int i = 0; i < users.size(); i++) {
+      entityManager.persist(users.get(i));
+      if ((i + 1) % jdbcBatchSize == 0) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    }
+    entityManager.flush();
+
+    if (!users.isEmpty())
+      eventPublisher.publishEvent(
+          new UserChangedEvent(
+              users.stream().map(User::getUsername).collect(Collectors.toUnmodifiableSet())));
+
+    long elapsedNanos = System.nanoTime() - bulk.startNanos();
+    double usersPerSecond = users.isEmpty() ? 0 : users.size() / (elapsedNanos / 1_000_000_000d);
+
+    if (log.isInfoEnabled())
+      log.info(
+          "bulk user import: requested={} imported={} failed={} elapsedMillis={} usersPerSecond={}",
+          bulk.requested(),
+          users.size(),
+          errors.size(),
+          elapsedNanos / 1_000_000,
+          String.format("%.1f", usersPerSecond));
+
+    errors.sort(Comparator.comparingInt(UserBulkImportErrorDto::getIndex));
+
+    return UserBulkImportResultDto.builder()
+        .requested(bulk.requested())
+        .imported(users.size())
+        .failed(errors.size())
+        .elapsedMillis(elapsedNanos / 1_000_000)
+        .usersPerSecond(usersPerSecond)
+        .errors(errors)
+        .build();
+  }
+
+  public VersionedUser update(String username, UserUpdateDto userDto) throws UserNotFoundException {
 
     User u =
         userRepository.findById(username).orElseThrow(() -> new UserNotFoundException(username));
@@ -126,7 +457,40 @@ public class UserService implements UserDetailsService {
     u.setLastname(userDto.getLastname());
     u.setEmail(userDto.getEmail());
 
-    return mapToUserResponseDto(userRepository.save(u));
+    // flush so the version is bumped even inside a caller's transaction
+    User saved = userRepository.saveAndFlush(u);
+    eventPublisher.publishEvent(UserChangedEvent.of(username));
+    return new VersionedUser(mapToUserResponseDto(saved), saved.getVersion());
+  }
+
+  /**
+   * Same as {@link #update(String, UserUpdateDto)}, but only if the user is still at {@code
+   * expectedVersion}. A write that slips in between the check and the flush is caught by the
+   * version column and reported as the same mismatch.
+   *
+   * @param expectedVersion version the client last saw, from its If-Match header
+   * @return the updated user and its new version
+   */
+  @Transactional
+  public VersionedUser update(String username, UserUpdateDto userDto, long expectedVersion)
+      throws UserNotFoundException, UserVersionMismatchException {
+    User u =
+        userRepository.findById(username).orElseThrow(() -> new UserNotFoundException(username));
+    if (u.getVersion() == null || u.getVersion() != expectedVersion)
+      throw new UserVersionMismatchException(username, "\"" + expectedVersion + "\"");
+
+    u.setFirstname(userDto.getFirstname());
+    u.setLastname(userDto.getLastname());
+    u.setEmail(userDto.getEmail());
+
+    User saved;
+    try {
+      saved = userRepository.saveAndFlush(u);
+    } catch (ObjectOptimisticLockingFailureException e) {
+      throw new UserVersionMismatchException(username, "\"" + expectedVersion + "\"", e);
+    }
+    eventPublisher.publishEvent(UserChangedEvent.of(username));
+    return new VersionedUser(mapToUserResponseDto(saved), saved.getVersion());
   }
 
   public UserDto delete(String username) throws UserNotFoundException {
@@ -134,10 +498,92 @@ public class UserService implements UserDetailsService {
         userRepository.findById(username).orElseThrow(() -> new UserNotFoundException(username));
 
     userRepository.deleteById(username);
+    eventPublisher.publishEvent(UserChangedEvent.of(username));
     return mapToUserResponseDto(u);
   }
 
-  // TODO implement modify scopes
+  /**
+   * Grants every scope in the request to every user in the request, in one transaction. Runs as
+   * set-based SQL against user_scopes, one INSERT ... SELECT and one version bump per chunk of
+   * {@value #SCOPE_CHANGE_CHUNK} users, no User entity is loaded. Grants the user already holds are
+   * skipped, and only users who gain a scope get a new version.
+   *
+   * @param change users and scopes, all must exist
+   * @return counts of the change
+   */
+  @Transactional
+  public UserScopeChangeResultDto grantScopes(UserScopeChangeDto change)
+      throws UserNotFoundException, InvalidScopeException {
+    return changeScopes(
+        change, userRepository::incrementVersionsMissingScopes, userRepository::grantScopes);
+  }
+
+  /**
+   * Revokes every scope in the request from every user in the request, in one transaction, using
+   * set-based DELETE statements like {@link #grantScopes(UserScopeChangeDto)}.
+   *
+   * @param change users and scopes, all must exist
+   * @return counts of the change
+   */
+  @Transactional
+  public UserScopeChangeResultDto revokeScopes(UserScopeChangeDto change)
+      throws UserNotFoundException, InvalidScopeException {
+    return changeScopes(
+        change, userRepository::incrementVersionsHoldingScopes, userRepository::revokeScopes);
+  }
+
+  /**
+   * @param versionBump bumps the version of the users the statement is about to change
+   * @param statement changes user_scopes, returns the rows changed
+   */
+  private UserScopeChangeResultDto changeScopes(
+      UserScopeChangeDto change,
+      BiFunction<List<String>, Set<String>, Integer> versionBump,
+      BiFunction<List<String>, Set<String>, Integer> statement) {
+    Set<String> scopes = change.getScopes();
+    Set<String> validScopes =
+        scopeRepository.findAllByNameIn(scopes).stream()
+            .map(Scope::getName)
+            .collect(Collectors.toSet());
+    if (validScopes.size() != scopes.size()) {
+      Set<String> invalidScopes = new HashSet<>(scopes);
+      invalidScopes.removeAll(validScopes);
+      throw new InvalidScopeException(invalidScopes);
+    }
+
+    List<String> usernames = new ArrayList<>(change.getUsernames());
+    int bumped = 0;
+    int changed = 0;
+    for (int from = 0; from < usernames.size(); from += SCOPE_CHANGE_CHUNK) {
+      List<String> chunk =
+          usernames.subList(from, Math.min(from + SCOPE_CHANGE_CHUNK, usernames.size()));
+      Set<String> existing = userRepository.findExistingUsernames(chunk);
+      if (existing.size() != chunk.size()) {
+        Set<String> missing = new HashSet<>(chunk);
+        missing.removeAll(existing);
+        throw new UserNotFoundException(String.join(", ", new TreeSet<>(missing)));
+      }
+      // the bump matches on the assignments the statement changes, so it has to run first
+      bumped += versionBump.apply(chunk, scopes);
+      changed += statement.apply(chunk, scopes);
+    }
+
+    if (log.isInfoEnabled())
+      log.info(
+          "scope change: users={} scopes={} usersChanged={} assignmentsChanged={}",
+          usernames.size(),
+          scopes,
+          bumped,
+          changed);
+
+    if (changed > 0) eventPublisher.publishEvent(new UserChangedEvent(Set.copyOf(usernames)));
+
+    return UserScopeChangeResultDto.builder()
+        .users(usernames.size())
+        .scopes(scopes.size())
+        .assignmentsChanged(changed)
+        .build();
+  }
 
   // TODO implement change password
 
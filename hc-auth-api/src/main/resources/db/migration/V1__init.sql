@@ -0,0 +1,46 @@
+-- Baseline schema, matches the JPA mappings, hibernate only validates against it.
+
+CREATE TABLE scopes (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  name VARCHAR(255) NOT NULL,
+  description VARCHAR(255),
+  -- backs lookups by scope name (ScopeRepository.findAllByNameIn, the grant/revoke statements)
+  CONSTRAINT uk_scopes_name UNIQUE (name)
+);
+
+CREATE TABLE users (
+  username VARCHAR(255) NOT NULL PRIMARY KEY,
+  firstname VARCHAR(255),
+  lastname VARCHAR(255),
+  email VARCHAR(255),
+  password VARCHAR(255),
+  version BIGINT
+);
+
+CREATE INDEX idx_users_email ON users (email);
+CREATE INDEX idx_users_lastname ON users (lastname);
+CREATE INDEX idx_users_firstname ON users (firstname);
+
+CREATE TABLE user_scopes (
+  username VARCHAR(255) NOT NULL,
+  scope_id BIGINT NOT NULL,
+  PRIMARY KEY (username, scope_id),
+  CONSTRAINT fk_user_scopes_username FOREIGN KEY (username) REFERENCES users (username),
+  CONSTRAINT fk_user_scopes_scope_id FOREIGN KEY (scope_id) REFERENCES scopes (id)
+);
+
+-- the primary key leads with username, "users holding scope X" needs its own index
+CREATE INDEX idx_user_scopes_scope_id ON user_scopes (scope_id);
+
+CREATE TABLE nav_item (
+  id BIGINT NOT NULL PRIMARY KEY,
+  child_of BIGINT,
+  title VARCHAR(255) NOT NULL,
+  description VARCHAR(255) NOT NULL,
+  public_url VARCHAR(255) NOT NULL,
+  path VARCHAR(255) NOT NULL,
+  sort_order INTEGER NOT NULL,
+  CONSTRAINT fk_nav_item_child_of FOREIGN KEY (child_of) REFERENCES nav_item (id)
+);
+
+CREATE INDEX idx_nav_item_child_of ON nav_item (child_of);
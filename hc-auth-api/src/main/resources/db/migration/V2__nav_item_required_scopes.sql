@@ -0,0 +1,4 @@
+-- Scopes a user needs to see a nav item (all of them), space-delimited like an OAuth scope claim.
+-- NULL means the item is visible to everyone who can see its parent.
+
+ALTER TABLE nav_item ADD COLUMN required_scopes VARCHAR(1024);
@@ -0,0 +1,92 @@
+package com.hedgecourt.auth.api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hedgecourt.spring.lib.security.HcAuthProblem;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AuthControllerTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Test
+  void wellKnown_ShouldBypassTokenProcessing() throws Exception {
+    // the bypass chain never resolves the bearer token, where the main chain rejects it
+    mockMvc
+        .perform(get("/.well-known/jwks.json").header(HttpHeaders.AUTHORIZATION, "Bearer bogus"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Content-Type-Options", "nosniff"));
+
+    mockMvc
+        .perform(get("/nav").header(HttpHeaders.AUTHORIZATION, "Bearer bogus"))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void wellKnown_ShouldWriteCompactJsonUnlessPrettyIsRequested() throws Exception {
+    String compact =
+        mockMvc
+            .perform(get("/.well-known/jwks.json"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    assertThat(compact).startsWith("{\"keys\":[{").doesNotContain("\n");
+
+    String pretty =
+        mockMvc
+            .perform(get("/.well-known/jwks.json").param("pretty", "true"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    assertThat(pretty).contains("\n").isNotEqualTo(compact);
+    assertThat(pretty.replaceAll("\\s", "")).isEqualTo(compact);
+  }
+
+  @Test
+  void rejections_ShouldBeProblemResponsesWithBearerChallenges() throws Exception {
+    mockMvc
+        .perform(get("/users"))
+        .andExpect(status().isUnauthorized())
+        .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+        .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer"))
+        .andExpect(jsonPath("$.status").value(401));
+
+    mockMvc
+        .perform(get("/users").header(HttpHeaders.AUTHORIZATION, "Bearer bogus"))
+        .andExpect(status().isUnauthorized())
+        .andExpect(
+            header()
+                .string(
+                    HttpHeaders.WWW_AUTHENTICATE, HcAuthProblem.INVALID_TOKEN.getWwwAuthenticate()))
+        .andExpect(jsonPath("$.title").value("Unauthorized"));
+  }
+
+  @Test
+  void login_ShouldNotEchoTheUsernameOnFailure() throws Exception {
+    mockMvc
+        .perform(
+            post("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"nosuchuser\",\"password\":\"wrong\"}"))
+        .andExpect(status().isUnauthorized())
+        .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+        .andExpect(header().doesNotExist(HttpHeaders.WWW_AUTHENTICATE))
+        .andExpect(jsonPath("$.detail").value("Bad credentials."));
+  }
+}
@@ -0,0 +1,58 @@
+package com.hedgecourt.auth.api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hedgecourt.spring.test.HcSpringBaseControllerTest;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.provider.Arguments;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BuildInfoControllerTest extends HcSpringBaseControllerTest {
+
+  @Override
+  public Stream<Arguments> getEndpointUseCases() {
+    return Stream.of(
+        Arguments.of(
+            Named.of(
+                "Get Build Info",
+                new EndpointUseCase("dev:read", HttpMethod.GET, "/build-info", null))));
+  }
+
+  @Test
+  void getBuildInfo_ShouldServeModulesAndRuntimeWithEtag() throws Exception {
+    String bearer = "Bearer " + generateJwt(Set.of("dev:read"));
+
+    String etag =
+        mockMvc
+            .perform(get("/build-info").header(HttpHeaders.AUTHORIZATION, bearer))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$['hc.env']").value("test"))
+            .andExpect(jsonPath("$.buildInfo['hc-auth-api']").exists())
+            .andExpect(
+                jsonPath("$.runtime.availableProcessors")
+                    .value(Runtime.getRuntime().availableProcessors()))
+            .andExpect(jsonPath("$.runtime.garbageCollectors").isNotEmpty())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    assertThat(etag).isNotBlank();
+
+    mockMvc
+        .perform(
+            get("/build-info")
+                .header(HttpHeaders.AUTHORIZATION, bearer)
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified());
+  }
+}
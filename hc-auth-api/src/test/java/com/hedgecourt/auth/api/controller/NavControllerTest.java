@@ -0,0 +1,172 @@
+package com.hedgecourt.auth.api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hedgecourt.auth.api.dto.NavItemDto;
+import com.hedgecourt.auth.api.service.NavChangeFeed;
+import com.hedgecourt.auth.api.service.NavService;
+import com.hedgecourt.spring.test.HcSpringBaseControllerTest;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.provider.Arguments;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.web.servlet.MvcResult;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class NavControllerTest extends HcSpringBaseControllerTest {
+
+  @Autowired private NavService navService;
+  @Autowired private NavChangeFeed navChangeFeed;
+
+  @Override
+  public Stream<Arguments> getEndpointUseCases() {
+    return Stream.of(
+        Arguments.of(
+            Named.of(
+                "Clobber Delete Nav",
+                new EndpointUseCase("admin:write", HttpMethod.DELETE, "/nav/clobber", null))),
+        Arguments.of(
+            Named.of(
+                "Clobber Add Nav",
+                new EndpointUseCase(
+                    "admin:write", HttpMethod.POST, "/nav/clobber", List.of(navItem(1, null))))));
+  }
+
+  private static NavItemDto navItem(long id, Long childOf) {
+    return NavItemDto.builder()
+        .id(id)
+        .childOf(childOf)
+        .title("Item " + id)
+        .description("Nav item " + id)
+        .publicUrl("http://localhost:3000")
+        .path("/item-" + id)
+        .sortOrder((int) id)
+        .build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    navService.bulkDelete();
+  }
+
+  @Test
+  void list_ShouldServeCachedNavWithEtagUntilNavChanges() throws Exception {
+    navService.bulkAdd(List.of(navItem(1, null), navItem(2, 1L)), true);
+
+    String etag =
+        mockMvc
+            .perform(get("/nav"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(1))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    assertThat(etag).isNotBlank();
+
+    mockMvc
+        .perform(get("/nav").header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified());
+
+    // a clobber drops the rendered nav once it commits
+    navService.bulkAdd(List.of(navItem(1, null), navItem(3, null)), true);
+
+    mockMvc
+        .perform(get("/nav").header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2));
+  }
+
+  @Test
+  void list_ShouldFilterNavByTheCallersScopes() throws Exception {
+    NavItemDto restricted = navItem(2, null);
+    restricted.setRequiredScopes(Set.of("test:nav-restricted"));
+    navService.bulkAdd(List.of(navItem(1, null), restricted, navItem(3, 2L)), true);
+
+    mockMvc
+        .perform(
+            get("/nav").header(HttpHeaders.AUTHORIZATION, "Bearer " + generateJwt(Set.of("other"))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1));
+
+    mockMvc
+        .perform(
+            get("/nav")
+                .header(
+                    HttpHeaders.AUTHORIZATION,
+                    "Bearer " + generateJwt(Set.of("test:nav-restricted"))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(3));
+  }
+
+  @Test
+  void tree_ShouldNestChildrenUnderParentsInSortOrder() throws Exception {
+    NavItemDto late = navItem(2, null);
+    late.setSortOrder(20);
+    NavItemDto early = navItem(3, 2L);
+    early.setSortOrder(1);
+    navService.bulkAdd(
+        List.of(navItem(1, null), late, early, navItem(4, 2L), navItem(5, 4L)), true);
+
+    mockMvc
+        .perform(
+            get("/nav/tree").header(HttpHeaders.AUTHORIZATION, "Bearer " + generateJwt(Set.of())))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+        .andExpect(jsonPath("$.length()").value(2))
+        .andExpect(jsonPath("$[0].id").value(1))
+        .andExpect(jsonPath("$[1].id").value(2))
+        .andExpect(jsonPath("$[1].children[0].id").value(3))
+        .andExpect(jsonPath("$[1].children[1].id").value(4))
+        .andExpect(jsonPath("$[1].children[1].children[0].id").value(5));
+
+    mockMvc
+        .perform(get("/nav/tree"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2))
+        .andExpect(jsonPath("$[1].children.length()").value(0));
+  }
+
+  @Test
+  void events_ShouldPushTheNewVersionAfterNavChanges() throws Exception {
+    long version = navChangeFeed.currentVersion();
+
+    MvcResult result =
+        mockMvc.perform(get("/nav/events")).andExpect(request().asyncStarted()).andReturn();
+    assertThat(content(result)).contains("event:nav-changed", "id:" + version);
+
+    navService.bulkAdd(List.of(navItem(1, null)), true);
+
+    await(() -> content(result).contains("id:" + (version + 1)));
+    assertThat(content(result)).contains("data:{\"version\":" + (version + 1) + "}");
+  }
+
+  private static String content(MvcResult result) {
+    return new String(result.getResponse().getContentAsByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      assertThat(System.currentTimeMillis()).as("condition within 5s").isLessThan(deadline);
+      Thread.sleep(20);
+    }
+  }
+}
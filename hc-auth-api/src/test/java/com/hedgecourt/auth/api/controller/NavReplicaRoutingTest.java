@@ -0,0 +1,93 @@
+package com.hedgecourt.auth.api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.hedgecourt.auth.api.datasource.HcReplicaCopyInitializer;
+import com.hedgecourt.auth.api.dto.NavItemDto;
+import com.hedgecourt.auth.api.service.NavService;
+import com.hedgecourt.spring.test.HcSpringBaseControllerTest;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.provider.Arguments;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+
+/**
+ * Nav served with replica routing on, where the replica is a copy of the primary taken at startup
+ * that never catches up, the worst a lagging replica can do.
+ */
+@SpringBootTest(
+    properties = {
+      "hc.auth.datasource.replica.enabled=true",
+      "hc.auth.datasource.replica.url=jdbc:h2:mem:hc_db_nav_replica;DB_CLOSE_DELAY=-1",
+      "hc.auth.datasource.replica.copy-primary-at-startup=true"
+    })
+@AutoConfigureMockMvc
+public class NavReplicaRoutingTest extends HcSpringBaseControllerTest {
+
+  @Autowired private NavService navService;
+  @Autowired private ObjectProvider<HcReplicaCopyInitializer> replicaCopyInitializer;
+
+  @Override
+  public Stream<Arguments> getEndpointUseCases() {
+    return Stream.of(
+        Arguments.of(
+            Named.of(
+                "Clobber Delete Nav",
+                new EndpointUseCase("admin:write", HttpMethod.DELETE, "/nav/clobber", null))));
+  }
+
+  private static NavItemDto navItem(long id) {
+    return NavItemDto.builder()
+        .id(id)
+        .title("Replica Item " + id)
+        .description("Nav item " + id)
+        .publicUrl("http://localhost:3000")
+        .path("/replica-item-" + id)
+        .sortOrder((int) id)
+        .build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    navService.bulkDelete();
+  }
+
+  @Test
+  void nav_ShouldReflectAClobberByAnotherCaller() throws Exception {
+    assertThat(replicaCopyInitializer.getIfAvailable()).isNotNull();
+    mockMvc.perform(get("/nav")).andExpect(status().isOk());
+
+    mockMvc
+        .perform(
+            post("/nav/clobber")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + generateJwt(Set.of("admin:write")))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(navItem(1), navItem(2)))))
+        .andExpect(status().isOk());
+
+    // anonymous, so not the caller whose write keeps its own reads on the primary
+    mockMvc
+        .perform(get("/nav"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2))
+        .andExpect(jsonPath("$[0].title").value("Replica Item 1"));
+    mockMvc
+        .perform(get("/nav/tree"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2));
+  }
+}
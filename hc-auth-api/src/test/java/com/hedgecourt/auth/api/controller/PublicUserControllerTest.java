@@ -0,0 +1,66 @@
+package com.hedgecourt.auth.api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PublicUserControllerTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Test
+  void listPublicUsers_ShouldServeSnapshotWithEtagAndHonorIfNoneMatch() throws Exception {
+    String etag =
+        mockMvc
+            .perform(get("/publicUsers"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+    assertThat(etag).isNotBlank();
+
+    mockMvc
+        .perform(get("/publicUsers").header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, etag));
+  }
+
+  @Test
+  void listPublicUsers_ShouldIndentSnapshotOnlyWhenAsked() throws Exception {
+    MockHttpServletResponse compact =
+        mockMvc.perform(get("/publicUsers")).andExpect(status().isOk()).andReturn().getResponse();
+    assertThat(compact.getContentAsString()).doesNotContainPattern("\\s");
+
+    MockHttpServletResponse pretty =
+        mockMvc
+            .perform(get("/publicUsers").param("pretty", "true"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse();
+    assertThat(pretty.getContentAsString())
+        .isNotEqualTo(compact.getContentAsString())
+        .isEqualToIgnoringWhitespace(compact.getContentAsString());
+    // both renderings share the weak ETag, so the pretty one revalidates too
+    String etag = compact.getHeader(HttpHeaders.ETAG);
+    assertThat(etag).startsWith("W/");
+    assertThat(pretty.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+
+    mockMvc
+        .perform(
+            get("/publicUsers").param("pretty", "true").header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, etag));
+  }
+}
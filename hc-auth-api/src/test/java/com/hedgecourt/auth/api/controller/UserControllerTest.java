@@ -4,31 +4,48 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.hedgecourt.auth.api.dto.UserBulkImportResultDto;
 import com.hedgecourt.auth.api.dto.UserCreateDto;
+import com.hedgecourt.auth.api.dto.UserScopeChangeDto;
 import com.hedgecourt.auth.api.dto.UserUpdateDto;
 import com.hedgecourt.auth.api.error.DuplicateUsernameException;
+import com.hedgecourt.auth.api.error.UserVersionMismatchException;
+import com.hedgecourt.auth.api.model.UserBulkImport;
+import com.hedgecourt.auth.api.model.VersionedUser;
 import com.hedgecourt.auth.api.service.UserService;
 import com.hedgecourt.spring.lib.dto.UserDto;
 import com.hedgecourt.spring.lib.error.UserNotFoundException;
+import com.hedgecourt.spring.lib.security.HcAuthProblem;
 import com.hedgecourt.spring.test.HcSpringBaseControllerTest;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Named;
 import org.junit.jupiter.api.Test;
@@ -44,6 +61,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -63,6 +81,14 @@ public class UserControllerTest extends HcSpringBaseControllerTest {
         Arguments.of(
             Named.of(
                 "List Users", new EndpointUseCase("user:read", HttpMethod.GET, "/users", null))),
+        Arguments.of(
+            Named.of(
+                "Export Users",
+                new EndpointUseCase("user:read", HttpMethod.GET, "/users/export", null))),
+        Arguments.of(
+            Named.of(
+                "Search Users",
+                new EndpointUseCase("user:read", HttpMethod.GET, "/users/search", null))),
         Arguments.of(
             Named.of(
                 "Create User",
@@ -78,6 +104,19 @@ public class UserControllerTest extends HcSpringBaseControllerTest {
                         .plaintextPassword("security;-)")
                         .scopes(Set.of())
                         .build()))),
+        Arguments.of(
+            Named.of(
+                "Bulk Import Users",
+                new EndpointUseCase(
+                    "user:write",
+                    HttpMethod.POST,
+                    "/users/bulk",
+                    List.of(
+                        UserCreateDto.builder()
+                            .username("testuser")
+                            .email("fname.lname@domain.com")
+                            .plaintextPassword("security;-)")
+                            .build())))),
         Arguments.of(
             Named.of(
                 "Update User",
@@ -91,7 +130,61 @@ public class UserControllerTest extends HcSpringBaseControllerTest {
             Named.of(
                 "Delete User",
                 new EndpointUseCase(
-                    "user:write", HttpMethod.DELETE, "/users/{username}", null, "testuser"))));
+                    "user:write", HttpMethod.DELETE, "/users/{username}", null, "testuser"))),
+        Arguments.of(
+            Named.of(
+                "Grant Scopes",
+                new EndpointUseCase(
+                    "user:write",
+                    HttpMethod.POST,
+                    "/users/scopes/grant",
+                    new UserScopeChangeDto(Set.of("testuser"), Set.of("user:read"))))),
+        Arguments.of(
+            Named.of(
+                "Revoke Scopes",
+                new EndpointUseCase(
+                    "user:write",
+                    HttpMethod.POST,
+                    "/users/scopes/revoke",
+                    new UserScopeChangeDto(Set.of("testuser"), Set.of("user:read"))))),
+        Arguments.of(
+            Named.of(
+                "Grant Scope",
+                new EndpointUseCase(
+                    "user:write",
+                    HttpMethod.PUT,
+                    "/users/{username}/scopes/{scope}",
+                    null,
+                    "testuser",
+                    "user:read"))),
+        Arguments.of(
+            Named.of(
+                "Revoke Scope",
+                new EndpointUseCase(
+                    "user:write",
+                    HttpMethod.DELETE,
+                    "/users/{username}/scopes/{scope}",
+                    null,
+                    "testuser",
+                    "user:read"))));
+  }
+
+  @Test
+  void list_ShouldDenyInsufficientScopeWithProblemResponse() throws Exception {
+    mockMvc
+        .perform(
+            get("/users")
+                .header(
+                    HttpHeaders.AUTHORIZATION,
+                    "Bearer " + generateJwt(Set.of("insufficient:authority"))))
+        .andExpect(status().isForbidden())
+        .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+        .andExpect(
+            header()
+                .string(
+                    HttpHeaders.WWW_AUTHENTICATE,
+                    HcAuthProblem.INSUFFICIENT_SCOPE.getWwwAuthenticate()))
+        .andExpect(jsonPath("$.status").value(403));
   }
 
   @Test
@@ -121,6 +214,33 @@ public class UserControllerTest extends HcSpringBaseControllerTest {
                 Matchers.containsInAnyOrder(expectedUser.getScopes().toArray(new String[0]))));
   }
 
+  @Test
+  public void retrieveUser_givenVersion_thenEtagAndNotModified() throws Exception {
+    authUser.setScopes(Set.of("user:read"));
+    String jwt = jwtService.generateToken(authUser);
+
+    when(userService.retrieveVersion("testuser")).thenReturn(Optional.of(7L));
+    when(userService.retrieve("testuser"))
+        .thenReturn(new UserDto("testuser", "fname", "lname", "test@email.com", Set.of()));
+
+    mockMvc
+        .perform(get("/users/{username}", "testuser").header("Authorization", "Bearer " + jwt))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+        .andExpect(jsonPath("$.username").value("testuser"));
+
+    mockMvc
+        .perform(
+            get("/users/{username}", "testuser")
+                .header("Authorization", "Bearer " + jwt)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+
+    // the 304 came from the version query alone
+    verify(userService, times(1)).retrieve("testuser");
+  }
+
   @Test
   public void retrieveUser_givenUserDoesNotExist_thenError() throws Exception {
     // Prepare mock data
@@ -190,6 +310,66 @@ public class UserControllerTest extends HcSpringBaseControllerTest {
                     expectedUsers.get(1).getScopes().toArray(new String[0]))));
   }
 
+  @Test
+  public void exportUsers_givenValidScope_thenStreamsNdjson() throws Exception {
+    doAnswer(
+            invocation -> {
+              OutputStream out = invocation.getArgument(0);
+              out.write("{\"username\":\"bilbo\"}\n{\"username\":\"frodo\"}\n".getBytes());
+              return 2L;
+            })
+        .when(userService)
+        .exportNdjson(any(OutputStream.class));
+
+    String jwt = generateJwt(Set.of("user:read"));
+
+    MvcResult plain =
+        mockMvc
+            .perform(get("/users/export").header("Authorization", "Bearer " + jwt))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    mockMvc
+        .perform(asyncDispatch(plain))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+        .andExpect(content().string("{\"username\":\"bilbo\"}\n{\"username\":\"frodo\"}\n"));
+
+    MvcResult gzipped =
+        mockMvc
+            .perform(
+                get("/users/export")
+                    .header("Authorization", "Bearer " + jwt)
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    byte[] body =
+        mockMvc
+            .perform(asyncDispatch(gzipped))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+      assertThat(new String(in.readAllBytes()))
+          .isEqualTo("{\"username\":\"bilbo\"}\n{\"username\":\"frodo\"}\n");
+    }
+  }
+
+  @Test
+  void acceptsGzip_ShouldHonorCodingTokensAndWeights() {
+    assertThat(UserController.acceptsGzip("gzip, deflate")).isTrue();
+    assertThat(UserController.acceptsGzip("deflate;q=0.5, GZIP;q=0.8")).isTrue();
+    assertThat(UserController.acceptsGzip("br, *")).isTrue();
+    assertThat(UserController.acceptsGzip(null)).isFalse();
+    assertThat(UserController.acceptsGzip("identity")).isFalse();
+    assertThat(UserController.acceptsGzip("gzip;q=0, deflate")).isFalse();
+    assertThat(UserController.acceptsGzip("gzip;q=0.000")).isFalse();
+    assertThat(UserController.acceptsGzip("*, gzip;q=0")).isFalse();
+    assertThat(UserController.acceptsGzip("x-gzip-foo, deflate")).isFalse();
+  }
+
   @Test
   public void listUsers_givenNoUsers_thenEmptyList() throws Exception {
     // Prepare mock data
@@ -273,7 +453,7 @@ public class UserControllerTest extends HcSpringBaseControllerTest {
 
     // Mock the service methods
     when(userService.update(any(String.class), any(UserUpdateDto.class)))
-        .thenReturn(unexpectedUser);
+        .thenReturn(new VersionedUser(unexpectedUser, 1L));
 
     mockMvc
         .perform(
@@ -327,7 +507,7 @@ public class UserControllerTest extends HcSpringBaseControllerTest {
             Set.of("scope:one", "scope:two"));
 
     when(userService.update(eq(expectedUser.getUsername()), any(UserUpdateDto.class)))
-        .thenReturn(expectedUser);
+        .thenReturn(new VersionedUser(expectedUser, 1L));
 
     mockMvc
         .perform(
@@ -337,6 +517,7 @@ public class UserControllerTest extends HcSpringBaseControllerTest {
                 .content(objectMapper.writeValueAsString(updatedUser)))
         .andDo(print())
         .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
         .andExpect(jsonPath("$.username").value(expectedUser.getUsername()))
         .andExpect(jsonPath("$.firstname").value(expectedUser.getFirstname()))
         .andExpect(jsonPath("$.lastname").value(expectedUser.getLastname()))
@@ -347,6 +528,51 @@ public class UserControllerTest extends HcSpringBaseControllerTest {
                 Matchers.containsInAnyOrder(expectedUser.getScopes().toArray(new String[0]))));
   }
 
+  @Test
+  void updateUser_givenIfMatch_thenConditionalUpdate() throws Exception {
+    String jwt = generateJwt(Set.of("user:write"));
+    UserUpdateDto updatedUser = new UserUpdateDto("newFirst", "newLast", "new@email.com");
+
+    when(userService.update(eq("iexist"), any(UserUpdateDto.class), eq(3L)))
+        .thenReturn(
+            new VersionedUser(
+                new UserDto("iexist", "newFirst", "newLast", "new@email.com", Set.of("scope:one")),
+                4L));
+    when(userService.update(eq("iexist"), any(UserUpdateDto.class), eq(2L)))
+        .thenThrow(new UserVersionMismatchException("iexist", "\"2\""));
+
+    mockMvc
+        .perform(
+            put("/users/{username}", "iexist")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwt)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedUser)))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+        .andExpect(jsonPath("$.firstname").value("newFirst"));
+
+    mockMvc
+        .perform(
+            put("/users/{username}", "iexist")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwt)
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedUser)))
+        .andExpect(status().isPreconditionFailed());
+
+    mockMvc
+        .perform(
+            put("/users/{username}", "iexist")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwt)
+                .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedUser)))
+        .andExpect(status().isPreconditionFailed());
+
+    verify(userService, never()).update(anyString(), any(UserUpdateDto.class));
+  }
+
   @Test
   void updateUser_givenExtraFields_ignoresThem() throws Exception {
     // Arrange
@@ -364,7 +590,10 @@ public class UserControllerTest extends HcSpringBaseControllerTest {
         """;
 
     // Mock service behavior
-    when(userService.update(eq(username), any(UserUpdateDto.class))).thenReturn(null);
+    when(userService.update(eq(username), any(UserUpdateDto.class)))
+        .thenReturn(
+            new VersionedUser(
+                new UserDto(username, "John", "Doe", "john.doe@example.com", Set.of()), 1L));
 
     // Act
     mockMvc
@@ -626,4 +855,31 @@ public class UserControllerTest extends HcSpringBaseControllerTest {
                 "$.scopes",
                 Matchers.containsInAnyOrder(expectedUser.getScopes().toArray(new String[0]))));
   }
+
+  @Test
+  void createBulkNdjson_ShouldHandTheBodyToTheServiceAsAReader() throws Exception {
+    String ndjson = "{\"username\":\"row1\"}\n\n{\"username\":\"row3\"}\n";
+    List<String> received = new ArrayList<>();
+    UserBulkImport bulk = new UserBulkImport(List.of(), 2, List.of(), 0);
+    doAnswer(
+            invocation -> {
+              received.addAll(invocation.<BufferedReader>getArgument(0).lines().toList());
+              return bulk;
+            })
+        .when(userService)
+        .readBulkNdjson(any());
+    when(userService.createBulk(bulk))
+        .thenReturn(UserBulkImportResultDto.builder().requested(2).imported(2).build());
+
+    mockMvc
+        .perform(
+            post("/users/bulk")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + generateJwt(Set.of("user:write")))
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.imported").value(2));
+
+    assertThat(received).containsExactly("{\"username\":\"row1\"}", "", "{\"username\":\"row3\"}");
+  }
 }
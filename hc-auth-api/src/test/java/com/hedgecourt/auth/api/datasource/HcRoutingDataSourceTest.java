@@ -0,0 +1,154 @@
+package com.hedgecourt.auth.api.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class HcRoutingDataSourceTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicLong clock = new AtomicLong();
+  private final DriverManagerDataSource replica = database("replica");
+
+  private HcRoutingDataSource routingDataSource;
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate readTemplate;
+  private TransactionTemplate writeTemplate;
+
+  /** A separate H2 database whose marker table names the route that served the query. */
+  private static DriverManagerDataSource database(String name) {
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource(
+            "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("CREATE TABLE route_marker (name VARCHAR(16))");
+    jdbcTemplate.update("INSERT INTO route_marker VALUES (?)", name);
+    return dataSource;
+  }
+
+  @BeforeEach
+  void setUp() {
+    routingDataSource =
+        new HcRoutingDataSource(
+            database("primary"),
+            replica,
+            Duration.ofSeconds(1),
+            Duration.ofSeconds(30),
+            meterRegistry,
+            clock::get);
+    DataSource routing = new LazyConnectionDataSourceProxy(routingDataSource);
+    jdbcTemplate = new JdbcTemplate(routing);
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+    readTemplate = new TransactionTemplate(transactionManager);
+    readTemplate.setReadOnly(true);
+    writeTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private static void actAs(String username) {
+    SecurityContextHolder.getContext()
+        .setAuthentication(new TestingAuthenticationToken(username, null, "ROLE_USER"));
+  }
+
+  private String read() {
+    return readTemplate.execute(
+        status -> jdbcTemplate.queryForObject("SELECT name FROM route_marker", String.class));
+  }
+
+  private String write() {
+    return writeTemplate.execute(
+        status -> jdbcTemplate.queryForObject("SELECT name FROM route_marker", String.class));
+  }
+
+  private double routed(String route) {
+    return meterRegistry
+        .get(HcRoutingDataSource.ROUTE_COUNTER)
+        .tag("route", route)
+        .counter()
+        .count();
+  }
+
+  @Test
+  void readOnlyTransactions_ShouldUseReplica() {
+    assertEquals("replica", read());
+    assertEquals("primary", write());
+    assertEquals(
+        "primary", jdbcTemplate.queryForObject("SELECT name FROM route_marker", String.class));
+    assertEquals(1, routed("replica"));
+  }
+
+  @Test
+  void readsAfterWrite_ShouldStayOnPrimaryForMaxLag() {
+    write();
+    assertEquals("primary", read());
+
+    clock.addAndGet(Duration.ofMillis(1001).toNanos());
+    assertEquals("replica", read());
+  }
+
+  @Test
+  void readsByOtherCallers_ShouldUseReplicaAfterWrite() {
+    actAs("alice");
+    write();
+    assertEquals("primary", read());
+
+    actAs("bob");
+    assertEquals("replica", read());
+  }
+
+  @Test
+  void readFromPrimary_ShouldKeepReadOnlyWorkOnThePrimary() {
+    assertEquals("primary", HcRoutingDataSource.readFromPrimary(this::read));
+    assertEquals("replica", read());
+  }
+
+  @Test
+  void connectionWithCredentials_ShouldBeRouted() throws SQLException {
+    try (Connection connection = routingDataSource.getConnection("sa", "");
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT name FROM route_marker")) {
+      resultSet.next();
+      assertEquals("primary", resultSet.getString(1));
+    }
+    assertEquals(1, routed("primary"));
+  }
+
+  @Test
+  void unavailableReplica_ShouldFallBackToPrimaryUntilRetry() {
+    replica.setUrl("jdbc:h2:mem:missing;IFEXISTS=TRUE");
+
+    assertEquals("primary", read());
+    assertEquals(1, routed("fallback"));
+
+    // the replica is not retried until retry-after has passed
+    assertEquals("primary", read());
+    assertEquals(1, routed("fallback"));
+
+    clock.addAndGet(Duration.ofSeconds(31).toNanos());
+    assertEquals("primary", read());
+    assertEquals(2, routed("fallback"));
+  }
+}
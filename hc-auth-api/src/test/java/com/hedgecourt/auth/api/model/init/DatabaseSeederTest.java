@@ -0,0 +1,106 @@
+package com.hedgecourt.auth.api.model.init;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class DatabaseSeederTest {
+
+  private static final ClassPathResource QA_SEED = new ClassPathResource("seed/qa.yml");
+
+  @TempDir Path snapshotDir;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private JdbcTemplate migratedDatabase() {
+    DataSource dataSource =
+        new DriverManagerDataSource(
+            "jdbc:h2:mem:seed-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+    return new JdbcTemplate(dataSource);
+  }
+
+  private DatabaseSeeder seeder(JdbcTemplate jdbcTemplate) {
+    return new DatabaseSeeder(
+        jdbcTemplate,
+        new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource())),
+        new BCryptPasswordEncoder(4),
+        meterRegistry,
+        snapshotDir.toString());
+  }
+
+  private long count(JdbcTemplate jdbcTemplate, String table) {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+  }
+
+  @Test
+  void seed_ShouldLoadSeedFileThenRestoreSnapshot() throws Exception {
+    JdbcTemplate first = migratedDatabase();
+    seeder(first).seed(QA_SEED, "changeme", true);
+
+    assertEquals(8, count(first, "scopes"));
+    assertEquals(3, count(first, "users"));
+    assertEquals(10, count(first, "user_scopes"));
+    assertEquals(6, count(first, "nav_item"));
+    List<String> hashes = first.queryForList("SELECT DISTINCT password FROM users", String.class);
+    assertEquals(1, hashes.size(), "seed users share one hash of the init password");
+    assertTrue(new BCryptPasswordEncoder().matches("changeme", hashes.get(0)));
+    try (var files = Files.list(snapshotDir)) {
+      assertEquals(1, files.count());
+    }
+
+    JdbcTemplate second = migratedDatabase();
+    seeder(second).seed(QA_SEED, "changeme", true);
+
+    assertEquals(3, count(second, "users"));
+    assertEquals(10, count(second, "user_scopes"));
+    assertEquals(6, count(second, "nav_item"));
+    assertEquals(
+        List.of("sandbox:read", "superadmin"),
+        second.queryForList(
+            "SELECT s.name FROM user_scopes us JOIN scopes s ON s.id = us.scope_id"
+                + " WHERE us.username = 'bilbo' AND s.name IN ('superadmin', 'sandbox:read')"
+                + " ORDER BY s.name",
+            String.class));
+    assertEquals(
+        1, meterRegistry.get(DatabaseSeeder.SEED_TIMER).tag("source", "file").timer().count());
+    assertEquals(
+        1, meterRegistry.get(DatabaseSeeder.SEED_TIMER).tag("source", "snapshot").timer().count());
+
+    // a seeded database is left alone
+    seeder(second).seed(QA_SEED, "changeme", true);
+    assertEquals(8, count(second, "scopes"));
+  }
+
+  @Test
+  void seed_ShouldIgnoreSnapshotOfAnotherInitPassword() throws Exception {
+    seeder(migratedDatabase()).seed(QA_SEED, "changeme", true);
+
+    JdbcTemplate second = migratedDatabase();
+    seeder(second).seed(QA_SEED, "changed", true);
+
+    String hash = second.queryForObject("SELECT MIN(password) FROM users", String.class);
+    assertTrue(new BCryptPasswordEncoder().matches("changed", hash));
+    assertEquals(
+        2, meterRegistry.get(DatabaseSeeder.SEED_TIMER).tag("source", "file").timer().count());
+    try (var files = Files.list(snapshotDir)) {
+      assertEquals(2, files.count());
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.hedgecourt.auth.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.hedgecourt.auth.api.error.NavFeedFullException;
+import com.hedgecourt.auth.api.event.NavChangedEvent;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class NavChangeFeedTest {
+
+  private final NavChangeFeed feed =
+      new NavChangeFeed(1, Duration.ofMinutes(1), Duration.ZERO, Duration.ofMinutes(1));
+
+  @Test
+  void subscribe_ShouldRejectSubscribersBeyondTheCapUntilOneIsDropped() throws Exception {
+    SseEmitter first = feed.subscribe();
+    assertThatThrownBy(feed::subscribe).isInstanceOf(NavFeedFullException.class);
+
+    // the next broadcast fails on the ended stream and frees its slot
+    first.complete();
+    feed.onNavChanged(new NavChangedEvent(1));
+    assertThat(feed.currentVersion()).isEqualTo(2);
+
+    SseEmitter second = null;
+    long deadline = System.currentTimeMillis() + 5000;
+    while (second == null && System.currentTimeMillis() < deadline) {
+      try {
+        second = feed.subscribe();
+      } catch (NavFeedFullException e) {
+        Thread.sleep(20);
+      }
+    }
+    assertThat(second).isNotNull();
+  }
+}
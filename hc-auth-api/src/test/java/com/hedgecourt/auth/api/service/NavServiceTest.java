@@ -0,0 +1,127 @@
+package com.hedgecourt.auth.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hedgecourt.auth.api.dto.NavItemDto;
+import com.hedgecourt.auth.api.error.InvalidNavItemException;
+import com.hedgecourt.spring.lib.model.HcScopeSet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@SpringBootTest
+@Transactional
+public class NavServiceTest {
+
+  @Autowired private NavService navService;
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private static NavItemDto navItem(long id, Long childOf) {
+    return NavItemDto.builder()
+        .id(id)
+        .childOf(childOf)
+        .title("Item " + id)
+        .description("Nav item " + id)
+        .publicUrl("http://localhost:3000")
+        .path("/item-" + id)
+        .sortOrder((int) id)
+        .build();
+  }
+
+  @Test
+  void bulkAdd_ShouldAcceptChildrenListedBeforeTheirParents() {
+    List<NavItemDto> imported =
+        navService.bulkAdd(
+            List.of(
+                navItem(4, 3L), navItem(3, 2L), navItem(2, 1L), navItem(1, null), navItem(5, 0L)),
+            true);
+
+    Map<Long, NavItemDto> byId =
+        imported.stream().collect(Collectors.toMap(NavItemDto::getId, Function.identity()));
+    assertEquals(5, byId.size());
+    assertEquals(3L, byId.get(4L).getChildOf());
+    assertEquals(1L, byId.get(2L).getChildOf());
+    assertEquals(0L, byId.get(1L).getChildOf());
+    assertEquals(0L, byId.get(5L).getChildOf());
+
+    // clobbering again replaces the existing items, including the ones with reused ids
+    assertEquals(2, navService.bulkAdd(List.of(navItem(2, 1L), navItem(1, null)), true).size());
+  }
+
+  @Test
+  void bulkAdd_ShouldRejectCyclesOfAnyLength() {
+    InvalidNavItemException ex =
+        assertThrows(
+            InvalidNavItemException.class,
+            () ->
+                navService.bulkAdd(
+                    List.of(navItem(1, null), navItem(2, 4L), navItem(3, 2L), navItem(4, 3L)),
+                    true));
+    assertTrue(ex.getMessage().contains("[2, 3, 4]"), ex.getMessage());
+
+    assertThrows(
+        InvalidNavItemException.class, () -> navService.bulkAdd(List.of(navItem(7, 7L)), true));
+  }
+
+  @Test
+  void bulkAdd_ShouldRejectUnknownParentsAndDuplicateIds() {
+    assertThrows(
+        InvalidNavItemException.class, () -> navService.bulkAdd(List.of(navItem(1, 9L)), true));
+    assertThrows(
+        InvalidNavItemException.class,
+        () -> navService.bulkAdd(List.of(navItem(1, null), navItem(1, null)), true));
+  }
+
+  @Test
+  void listVisibleTo_ShouldRequireAllScopesAndHideSubtreesOfHiddenParents() {
+    NavItemDto admin = navItem(2, null);
+    admin.setRequiredScopes(Set.of("test:nav-a"));
+    NavItemDto adminChild = navItem(3, 2L);
+    adminChild.setRequiredScopes(Set.of("test:nav-b"));
+    navService.bulkAdd(List.of(navItem(1, null), admin, adminChild, navItem(4, 3L)), true);
+
+    assertEquals(List.of(1L), ids(navService.listAnonymous()));
+    assertEquals(List.of(1L), ids(navService.listVisibleTo(HcScopeSet.of(List.of("test:nav-b")))));
+    assertEquals(
+        List.of(1L, 2L), ids(navService.listVisibleTo(HcScopeSet.of(List.of("test:nav-a")))));
+    assertEquals(
+        List.of(1L, 2L, 3L, 4L),
+        ids(navService.listVisibleTo(HcScopeSet.of(List.of("test:nav-a", "test:nav-b")))));
+  }
+
+  @Test
+  void bulkDelete_ShouldUseThreeStatementsRegardlessOfItemCount() {
+    List<NavItemDto> items = new ArrayList<>();
+    items.add(navItem(1, null));
+    for (long id = 2; id <= 200; id++) items.add(navItem(id, id / 2));
+    navService.bulkAdd(items, true);
+    entityManager.clear();
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    assertEquals(200, navService.bulkDelete().size());
+
+    assertEquals(3, statistics.getPrepareStatementCount());
+    assertTrue(navService.list().isEmpty());
+  }
+
+  private static List<Long> ids(List<NavItemDto> navItems) {
+    return navItems.stream().map(NavItemDto::getId).sorted().toList();
+  }
+}
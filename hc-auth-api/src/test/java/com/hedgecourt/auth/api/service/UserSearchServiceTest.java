@@ -0,0 +1,105 @@
+package com.hedgecourt.auth.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.hedgecourt.auth.api.dto.UserSearchResultDto;
+import com.hedgecourt.auth.api.event.UserChangedEvent;
+import com.hedgecourt.auth.api.model.UserRepository;
+import com.hedgecourt.auth.api.model.UserView;
+import com.hedgecourt.spring.lib.dto.UserDto;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class UserSearchServiceTest {
+
+  private UserRepository userRepository;
+  private UserSearchService userSearchService;
+
+  @BeforeEach
+  void setUp() {
+    userRepository = mock(UserRepository.class);
+    when(userRepository.findAllViews())
+        .thenReturn(
+            List.of(
+                new UserView("alice", "Alice", "Smith", "alice@example.com", "search:user"),
+                new UserView(
+                    "bob", "Bob", "Johnson", "bob@example.org", "search:user search:admin"),
+                new UserView("chuck", "Chuck", "Davis", "chuck@example.com", null)));
+    userSearchService = new UserSearchService(userRepository);
+    userSearchService.onApplicationReady();
+  }
+
+  private List<String> usernames(UserSearchResultDto result) {
+    return result.getUsers().stream().map(UserDto::getUsername).toList();
+  }
+
+  @Test
+  void search_ShouldMatchSubstringsAcrossFields() {
+    assertEquals(
+        List.of("alice", "chuck"),
+        usernames(
+            userSearchService.search(
+                "EXAMPLE.COM", UserSearchService.Match.CONTAINS, null, 0, 20)));
+    assertEquals(
+        List.of("bob"),
+        usernames(userSearchService.search("hns", UserSearchService.Match.CONTAINS, null, 0, 20)));
+    assertEquals(
+        List.of("chuck"),
+        usernames(userSearchService.search("av", UserSearchService.Match.CONTAINS, null, 0, 20)));
+  }
+
+  @Test
+  void search_ShouldMatchPrefixes() {
+    assertEquals(
+        List.of("bob"),
+        usernames(userSearchService.search("bo", UserSearchService.Match.PREFIX, null, 0, 20)));
+    assertTrue(
+        userSearchService
+            .search("lice", UserSearchService.Match.PREFIX, null, 0, 20)
+            .getUsers()
+            .isEmpty());
+  }
+
+  @Test
+  void search_ShouldFilterByScopesAndPaginate() {
+    assertEquals(
+        List.of("bob"),
+        usernames(
+            userSearchService.search(
+                null, UserSearchService.Match.CONTAINS, List.of("search:admin"), 0, 20)));
+    assertEquals(
+        0,
+        userSearchService
+            .search(null, UserSearchService.Match.CONTAINS, List.of("search:unknown"), 0, 20)
+            .getTotal());
+
+    UserSearchResultDto page = userSearchService.search("", null, null, 1, 2);
+    assertEquals(3, page.getTotal());
+    assertEquals(List.of("chuck"), usernames(page));
+  }
+
+  @Test
+  void onUserChanged_ShouldUpdateIndexIncrementally() {
+    when(userRepository.findViewsByUsernameIn(anyCollection()))
+        .thenReturn(List.of(new UserView("alice", "Alice", "Jones", "alice@example.net", null)));
+
+    userSearchService.onUserChanged(new UserChangedEvent(Set.of("alice", "bob")));
+
+    assertEquals(
+        List.of("alice"),
+        usernames(
+            userSearchService.search("jones", UserSearchService.Match.CONTAINS, null, 0, 20)));
+    assertTrue(
+        userSearchService
+            .search("smith", UserSearchService.Match.CONTAINS, null, 0, 20)
+            .getUsers()
+            .isEmpty());
+    assertEquals(2, userSearchService.search(null, null, null, 0, 20).getTotal());
+  }
+}
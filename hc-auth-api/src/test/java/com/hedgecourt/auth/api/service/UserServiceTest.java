@@ -6,16 +6,28 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.hedgecourt.auth.api.dto.UserBulkImportErrorDto;
+import com.hedgecourt.auth.api.dto.UserBulkImportResultDto;
 import com.hedgecourt.auth.api.dto.UserCreateDto;
+import com.hedgecourt.auth.api.dto.UserScopeChangeDto;
+import com.hedgecourt.auth.api.dto.UserScopeChangeResultDto;
 import com.hedgecourt.auth.api.dto.UserUpdateDto;
 import com.hedgecourt.auth.api.error.DuplicateUsernameException;
 import com.hedgecourt.auth.api.error.InvalidScopeException;
+import com.hedgecourt.auth.api.error.UserVersionMismatchException;
 import com.hedgecourt.auth.api.model.Scope;
 import com.hedgecourt.auth.api.model.ScopeRepository;
 import com.hedgecourt.auth.api.model.User;
 import com.hedgecourt.auth.api.model.UserRepository;
+import com.hedgecourt.auth.api.model.VersionedUser;
 import com.hedgecourt.spring.lib.dto.UserDto;
 import com.hedgecourt.spring.lib.error.UserNotFoundException;
+import jakarta.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Set;
 import org.junit.jupiter.api.AfterEach;
@@ -38,6 +50,8 @@ public class UserServiceTest {
 
   @Autowired private PasswordEncoder passwordEncoder;
 
+  @Autowired private EntityManager entityManager;
+
   private User alice;
   private User bob;
   private User chuck;
@@ -218,6 +232,120 @@ public class UserServiceTest {
     }
   }
 
+  @Test
+  void listByScopeName_ShouldReturnMatchingUsersWithAllTheirScopes() {
+    // Act
+    List<UserDto> admins = userService.listByScopeName("admin");
+
+    // Assert
+    assertEquals(List.of("bob", "chuck"), admins.stream().map(UserDto::getUsername).toList());
+    assertEquals(Set.of("user", "admin"), admins.get(1).getScopes());
+  }
+
+  @Test
+  void exportNdjson_ShouldWriteOneUserPerLineInUsernameOrder() throws Exception {
+    // Act
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long count = userService.exportNdjson(out);
+
+    // Assert
+    List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+    assertEquals(4, count);
+    assertEquals(4, lines.size());
+    assertTrue(lines.get(0).startsWith("{\"username\":\"alice\""), lines.get(0));
+    assertTrue(lines.get(3).startsWith("{\"username\":\"dave\""), lines.get(3));
+    assertFalse(out.toString(StandardCharsets.UTF_8).contains("password"));
+  }
+
+  @Test
+  void update_ShouldHonorExpectedVersion() {
+    // Arrange
+    long version = userService.retrieveVersion("bob").orElseThrow();
+    UserUpdateDto change = new UserUpdateDto("Robert", "Johnson", "bob@example.com");
+
+    // Act
+    VersionedUser updated = userService.update("bob", change, version);
+
+    // Assert
+    assertEquals(version + 1, updated.version());
+    assertEquals(version + 1, userService.retrieveVersion("bob").orElseThrow());
+    assertThrows(
+        UserVersionMismatchException.class, () -> userService.update("bob", change, version));
+    assertTrue(userService.retrieveVersion("nobody").isEmpty());
+  }
+
+  @Test
+  void update_ShouldReportAConcurrentWriteAsAVersionMismatch() {
+    // Arrange, another writer bumps the row after bob was loaded
+    long version = userService.retrieveVersion("bob").orElseThrow();
+    userRepository.findById("bob").orElseThrow();
+    entityManager
+        .createNativeQuery("UPDATE users SET version = version + 1 WHERE username = 'bob'")
+        .executeUpdate();
+    UserUpdateDto change = new UserUpdateDto("Robert", "Johnson", "bob@example.com");
+
+    // Act & Assert
+    assertThrows(
+        UserVersionMismatchException.class, () -> userService.update("bob", change, version));
+  }
+
+  @Test
+  void grantAndRevokeScopes_ShouldChangeAssignmentsAndBumpVersions() {
+    // Arrange
+    long daveVersion = userService.retrieveVersion("dave").orElseThrow();
+
+    // Act: alice already holds 'user', so only three assignments are new
+    UserScopeChangeResultDto granted =
+        userService.grantScopes(
+            new UserScopeChangeDto(Set.of("alice", "chuck", "dave"), Set.of("user", "root")));
+
+    // Assert
+    assertEquals(4, granted.getAssignmentsChanged());
+    assertEquals(Set.of("user", "root"), userService.retrieve("dave").getScopes());
+    assertEquals(Set.of("user", "admin", "root"), userService.retrieve("chuck").getScopes());
+    assertEquals(daveVersion + 1, userService.retrieveVersion("dave").orElseThrow());
+
+    // Act
+    UserScopeChangeResultDto revoked =
+        userService.revokeScopes(
+            new UserScopeChangeDto(Set.of("alice", "bob"), Set.of("user", "admin")));
+
+    // Assert
+    assertEquals(2, revoked.getAssignmentsChanged());
+    assertTrue(userService.retrieve("alice").getScopes().contains("root"));
+    assertFalse(userService.retrieve("alice").getScopes().contains("user"));
+    assertTrue(userService.retrieve("bob").getScopes().isEmpty());
+  }
+
+  @Test
+  void grantAndRevokeScopes_ShouldNotBumpVersionsOfUnchangedUsers() {
+    // Arrange
+    long aliceVersion = userService.retrieveVersion("alice").orElseThrow();
+    long bobVersion = userService.retrieveVersion("bob").orElseThrow();
+
+    // Act: alice already holds 'user' and bob never held 'root', nothing changes
+    UserScopeChangeResultDto granted =
+        userService.grantScopes(new UserScopeChangeDto(Set.of("alice"), Set.of("user")));
+    UserScopeChangeResultDto revoked =
+        userService.revokeScopes(new UserScopeChangeDto(Set.of("bob"), Set.of("root")));
+
+    // Assert
+    assertEquals(0, granted.getAssignmentsChanged());
+    assertEquals(0, revoked.getAssignmentsChanged());
+    assertEquals(aliceVersion, userService.retrieveVersion("alice").orElseThrow());
+    assertEquals(bobVersion, userService.retrieveVersion("bob").orElseThrow());
+  }
+
+  @Test
+  void grantScopes_ShouldRejectUnknownUsersAndScopes() {
+    assertThrows(
+        InvalidScopeException.class,
+        () -> userService.grantScopes(new UserScopeChangeDto(Set.of("alice"), Set.of("nope"))));
+    assertThrows(
+        UserNotFoundException.class,
+        () -> userService.grantScopes(new UserScopeChangeDto(Set.of("nobody"), Set.of("user"))));
+  }
+
   @Test
   void list_ShouldReturnAnEmptyList_WhenNoUsersExist() {
     // Arrange: Clear all users
@@ -373,10 +501,15 @@ public class UserServiceTest {
             .build();
 
     // Act: Update user
-    UserDto updatedUser = userService.update("alice", updateDto);
+    VersionedUser updated = userService.update("alice", updateDto);
+    UserDto updatedUser = updated.user();
 
     // Assert: Ensure the update took place
     assertNotNull(updatedUser, "Updated user should not be null.");
+    assertEquals(
+        userService.retrieveVersion("alice").orElseThrow(),
+        updated.version(),
+        "Update should report the version it wrote.");
     assertEquals(
         updateDto.getFirstname(), updatedUser.getFirstname(), "Firstname should be updated.");
     assertEquals(updateDto.getLastname(), updatedUser.getLastname(), "Lastname should be updated.");
@@ -444,4 +577,91 @@ public class UserServiceTest {
     assertEquals(
         pre, post, "The user returned by delete should match the user retrieved before delete.");
   }
+
+  @Test
+  void createBulk_ShouldImportValidRowsAndReportInvalidRows() {
+    // Arrange
+    List<UserCreateDto> rows =
+        List.of(
+            UserCreateDto.builder()
+                .username("bulk1")
+                .email("bulk1@example.com")
+                .plaintextPassword("password1")
+                .scopes(Set.of(userScope.getName(), adminScope.getName()))
+                .build(),
+            UserCreateDto.builder()
+                .username("alice")
+                .email("alice@example.com")
+                .plaintextPassword("password1")
+                .scopes(Set.of())
+                .build(),
+            UserCreateDto.builder()
+                .username("bulk2")
+                .email("bulk2@example.com")
+                .plaintextPassword("password2")
+                .scopes(Set.of("fakeScope"))
+                .build(),
+            UserCreateDto.builder()
+                .username("bulk3")
+                .email("not-an-email")
+                .plaintextPassword("password3")
+                .build(),
+            UserCreateDto.builder()
+                .username("bulk1")
+                .email("bulk1@example.com")
+                .plaintextPassword("password1")
+                .build(),
+            UserCreateDto.builder()
+                .username("bulk4")
+                .email("bulk4@example.com")
+                .plaintextPassword("password4")
+                .build());
+
+    // Act
+    UserBulkImportResultDto result = userService.createBulk(rows);
+
+    // Assert
+    assertEquals(6, result.getRequested());
+    assertEquals(2, result.getImported());
+    assertEquals(4, result.getFailed());
+    assertEquals(
+        List.of(1, 2, 3, 4),
+        result.getErrors().stream().map(UserBulkImportErrorDto::getIndex).toList(),
+        "Errors should be reported per row, in row order.");
+
+    UserDto bulk1 = userService.retrieve("bulk1");
+    assertEquals(Set.of(userScope.getName(), adminScope.getName()), bulk1.getScopes());
+    assertTrue(userService.retrieve("bulk4").getScopes().isEmpty());
+    assertThrows(UserNotFoundException.class, () -> userService.retrieve("bulk2"));
+
+    User entityUser = userRepository.findById("bulk1").orElseThrow();
+    assertTrue(
+        passwordEncoder.matches("password1", entityUser.getPassword()),
+        "Encoded password must match plaintext password");
+  }
+
+  @Test
+  void readBulkNdjson_ShouldReportMalformedLines() throws IOException {
+    // Arrange
+    String ndjson =
+        """
+        {"username":"ndjson1","email":"ndjson1@example.com","plaintextPassword":"password1"}
+
+        {"username":"ndjson2", this is not json
+        {"username":"ndjson3","email":"ndjson3@example.com","plaintextPassword":"password3"}
+        """;
+
+    // Act
+    UserBulkImportResultDto result =
+        userService.createBulk(
+            userService.readBulkNdjson(new BufferedReader(new StringReader(ndjson))));
+
+    // Assert
+    assertEquals(3, result.getRequested());
+    assertEquals(2, result.getImported());
+    assertEquals(1, result.getErrors().size());
+    // indexes are input line numbers, the blank line still counts
+    assertEquals(2, result.getErrors().get(0).getIndex());
+    assertNotNull(userService.retrieve("ndjson3"));
+  }
 }
@@ -0,0 +1,30 @@
+package com.hedgecourt.spring.lib;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.hedgecourt.spring.lib.json.HcJacksonHttpMessageConverter;
+import com.hedgecourt.spring.lib.json.HcObjectWriters;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JSON output for HC applications. Blackbird replaces reflective getter calls with generated
+ * lambdas in the application's {@link ObjectMapper}, and {@link HcJacksonHttpMessageConverter}
+ * takes over from Spring Boot's converter to write with the cached {@link HcObjectWriters}.
+ */
+@Configuration
+public class HcJacksonConfiguration {
+
+  /** Spring Boot registers every {@link Module} bean with the {@link ObjectMapper} it builds. */
+  @Bean
+  public Module hcBlackbirdModule() {
+    return new BlackbirdModule();
+  }
+
+  @Bean
+  public HcJacksonHttpMessageConverter hcJacksonHttpMessageConverter(
+      ObjectMapper objectMapper, HcObjectWriters objectWriters) {
+    return new HcJacksonHttpMessageConverter(objectMapper, objectWriters);
+  }
+}
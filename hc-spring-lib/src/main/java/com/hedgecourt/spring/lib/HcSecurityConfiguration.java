@@ -1,23 +1,32 @@
 package com.hedgecourt.spring.lib;
 
+import com.hedgecourt.spring.lib.security.HcAuthProblemHandler;
+import com.hedgecourt.spring.lib.security.HcJwtAuthenticationConverter;
+import com.hedgecourt.spring.lib.security.HcSecuredAuthorizationManager;
 import com.hedgecourt.spring.lib.service.HcPublicPathsMatcherService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
 @EnableWebSecurity
-@EnableMethodSecurity(securedEnabled = true)
+// @Secured is enforced by hcSecuredAuthorizationAdvisor below, not by the stock interceptor
+@EnableMethodSecurity
 public class HcSecurityConfiguration {
   private static final Logger log = LoggerFactory.getLogger(HcSecurityConfiguration.class);
 
@@ -45,21 +54,71 @@ public class HcSecurityConfiguration {
             (sessionManagement) ->
                 sessionManagement.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
+    // rejections are answered with pre-rendered problem bodies, see HcAuthProblem
+    HcAuthProblemHandler problemHandler = new HcAuthProblemHandler();
+    http.exceptionHandling(
+        exceptionHandling ->
+            exceptionHandling
+                .authenticationEntryPoint(problemHandler)
+                .accessDeniedHandler(problemHandler));
+
     http.oauth2ResourceServer(
         oauth2 ->
-            oauth2.jwt(
-                jwt -> {
-                  // jwt.decoder(JwtDecoders.fromIssuerLocation(issuerUri));
-                  jwt.jwtAuthenticationConverter(jwtAuthenticationConverter());
-                }));
+            oauth2
+                .authenticationEntryPoint(problemHandler)
+                .accessDeniedHandler(problemHandler)
+                .jwt(
+                    jwt -> {
+                      // jwt.decoder(JwtDecoders.fromIssuerLocation(issuerUri));
+                      jwt.jwtAuthenticationConverter(jwtAuthenticationConverter());
+                    }));
+
+    return http.build();
+  }
+
+  /**
+   * Ordered ahead of the application chain and only for paths marked {@link
+   * com.hedgecourt.spring.lib.annotation.HcPublicEndpoint#bypassFilterChain()}. Everything but the
+   * security headers is switched off, so those requests skip CORS, bearer token resolution,
+   * security context handling and authorization. Declared after {@link #securityFilterChain}, whose
+   * missing-bean condition must not see it.
+   */
+  @Bean
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public SecurityFilterChain hcBypassFilterChain(HttpSecurity http) throws Exception {
+    if (log.isInfoEnabled()) log.info("Setting up HC bypass filter chain");
+
+    http.securityMatcher(publicPathsMatcherService.getBypassPathsMatcher())
+        .cors(AbstractHttpConfigurer::disable)
+        .csrf(AbstractHttpConfigurer::disable)
+        .anonymous(AbstractHttpConfigurer::disable)
+        .logout(AbstractHttpConfigurer::disable)
+        .requestCache(AbstractHttpConfigurer::disable)
+        .securityContext(AbstractHttpConfigurer::disable)
+        .servletApi(AbstractHttpConfigurer::disable)
+        .sessionManagement(AbstractHttpConfigurer::disable)
+        .exceptionHandling(AbstractHttpConfigurer::disable);
 
     return http.build();
   }
 
   @Bean
-  @ConditionalOnMissingBean(JwtAuthenticationConverter.class)
-  public JwtAuthenticationConverter jwtAuthenticationConverter() {
-    JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static HcSecuredAuthorizationManager hcSecuredAuthorizationManager() {
+    return new HcSecuredAuthorizationManager();
+  }
+
+  /** Applies {@link HcSecuredAuthorizationManager} to {@code @Secured} methods. */
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static Advisor hcSecuredAuthorizationAdvisor(HcSecuredAuthorizationManager manager) {
+    return AuthorizationManagerBeforeMethodInterceptor.secured(manager);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(HcJwtAuthenticationConverter.class)
+  public HcJwtAuthenticationConverter jwtAuthenticationConverter() {
+    HcJwtAuthenticationConverter converter = new HcJwtAuthenticationConverter();
 
     if (log.isInfoEnabled())
       log.info("Setting up HC Sandbox jwt authentication converter: {}", converter);
@@ -7,4 +7,13 @@ import java.lang.annotation.Target;
 
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
-public @interface HcPublicEndpoint {}
+public @interface HcPublicEndpoint {
+
+  /**
+   * Serve the endpoint through a filter chain that does no security work at all, no CORS, no bearer
+   * token or security context, only the security headers. Only for endpoints that never look at the
+   * caller and are not called cross-origin from browsers, a token sent along is ignored rather than
+   * rejected.
+   */
+  boolean bypassFilterChain() default false;
+}
@@ -19,4 +19,6 @@ public class BuildInfoDto {
   String springApplicationName;
 
   Map<String, Map<String, String>> buildInfo;
+
+  BuildInfoRuntimeDto runtime;
 }
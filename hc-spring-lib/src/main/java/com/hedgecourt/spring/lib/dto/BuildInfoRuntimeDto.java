@@ -0,0 +1,24 @@
+package com.hedgecourt.spring.lib.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** JVM facts fixed at startup, the first things to check when an environment performs badly. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BuildInfoRuntimeDto {
+  String javaVersion;
+  String javaVendor;
+  String vmName;
+  String startTime;
+  int availableProcessors;
+  List<String> garbageCollectors;
+  long heapInitBytes;
+  long heapMaxBytes;
+  boolean virtualThreads;
+}
@@ -0,0 +1,68 @@
+package com.hedgecourt.spring.lib.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Optional;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConversionException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.TypeUtils;
+
+/**
+ * Writes plain UTF-8 JSON bodies with the cached writers of {@link HcObjectWriters}, indented only
+ * when the request asked for it. Values wrapped in {@link MappingJacksonValue}, other encodings and
+ * event streams keep Spring's own handling.
+ */
+public class HcJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+  private final HcObjectWriters objectWriters;
+
+  public HcJacksonHttpMessageConverter(ObjectMapper objectMapper, HcObjectWriters objectWriters) {
+    super(objectMapper);
+    this.objectWriters = objectWriters;
+  }
+
+  @Override
+  protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+      throws IOException {
+    MediaType contentType = outputMessage.getHeaders().getContentType();
+    if (object instanceof MappingJacksonValue
+        || getJsonEncoding(contentType) != JsonEncoding.UTF8
+        || contentType != null && contentType.isCompatibleWith(MediaType.TEXT_EVENT_STREAM)) {
+      super.writeInternal(object, type, outputMessage);
+      return;
+    }
+
+    try {
+      objectWriters
+          .writerFor(javaType(object, type), HcObjectWriters.prettyRequested())
+          .writeValue(StreamUtils.nonClosing(outputMessage.getBody()), object);
+    } catch (InvalidDefinitionException e) {
+      throw new HttpMessageConversionException("Type definition error: " + e.getType(), e);
+    } catch (JsonProcessingException e) {
+      throw new HttpMessageNotWritableException(
+          "Could not write JSON: " + e.getOriginalMessage(), e);
+    }
+  }
+
+  /**
+   * Same choice Spring makes: the declared type for containers, so element types survive erasure,
+   * otherwise the runtime class, so subclass properties are written.
+   */
+  private JavaType javaType(Object object, Type type) {
+    if (type != null && TypeUtils.isAssignable(type, object.getClass())) {
+      JavaType declared = getJavaType(type, null);
+      if (declared.isContainerType() || declared.isTypeOrSubTypeOf(Optional.class)) return declared;
+    }
+    return objectWriters.constructType(object.getClass());
+  }
+}
@@ -0,0 +1,114 @@
+package com.hedgecourt.spring.lib.json;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * {@link ObjectWriter}s of the application's {@link ObjectMapper}, resolved once per type and kept,
+ * so a response only pays for writing its value. Output is compact; a request asks for indented
+ * output with {@value #PRETTY_PARAM}=true.
+ */
+@Component
+public class HcObjectWriters implements ApplicationListener<ContextRefreshedEvent> {
+  private static final Logger log = LoggerFactory.getLogger(HcObjectWriters.class);
+
+  public static final String PRETTY_PARAM = "pretty";
+
+  private final ObjectMapper objectMapper;
+  private final ObjectWriter prettyWriter;
+
+  private final ConcurrentMap<JavaType, ObjectWriter> compactWriters = new ConcurrentHashMap<>();
+  private final ConcurrentMap<JavaType, ObjectWriter> prettyWriters = new ConcurrentHashMap<>();
+
+  public HcObjectWriters(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    this.prettyWriter = objectMapper.writerWithDefaultPrettyPrinter();
+  }
+
+  public JavaType constructType(Type type) {
+    return objectMapper.constructType(type);
+  }
+
+  public ObjectWriter writerFor(JavaType type, boolean pretty) {
+    ConcurrentMap<JavaType, ObjectWriter> writers = pretty ? prettyWriters : compactWriters;
+    ObjectWriter writer = writers.get(type);
+    if (writer != null) return writer;
+    ObjectWriter base = pretty ? prettyWriter : objectMapper.writer();
+    return writers.computeIfAbsent(type, base::forType);
+  }
+
+  public ObjectWriter writerForListOf(Class<?> elementType) {
+    return writerFor(
+        objectMapper.getTypeFactory().constructCollectionType(List.class, elementType), false);
+  }
+
+  /** Re-renders an already serialized JSON body with indentation. */
+  public byte[] prettyPrint(byte[] json) throws IOException {
+    return prettyWriter.writeValueAsBytes(objectMapper.readTree(json));
+  }
+
+  /** True when the current request asked for {@value #PRETTY_PARAM}=true. */
+  public static boolean prettyRequested() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    return attributes instanceof ServletRequestAttributes servletAttributes
+        && prettyRequested(servletAttributes.getRequest());
+  }
+
+  public static boolean prettyRequested(HttpServletRequest request) {
+    return Boolean.parseBoolean(request.getParameter(PRETTY_PARAM));
+  }
+
+  /**
+   * Resolves the writer for every controller's response type up front, like the first call would.
+   */
+  @Override
+  public void onApplicationEvent(ContextRefreshedEvent event) {
+    event
+        .getApplicationContext()
+        .getBeansOfType(RequestMappingHandlerMapping.class)
+        .values()
+        .forEach(
+            handlerMapping ->
+                handlerMapping
+                    .getHandlerMethods()
+                    .values()
+                    .forEach(handlerMethod -> warm(handlerMethod.getReturnType())));
+
+    if (log.isDebugEnabled()) log.debug("resolved writers for {} types", compactWriters.size());
+  }
+
+  private void warm(MethodParameter returnType) {
+    ResolvableType type = ResolvableType.forMethodParameter(returnType);
+    if (HttpEntity.class.isAssignableFrom(type.toClass())) type = type.getGeneric();
+
+    Class<?> raw = type.toClass();
+    // byte[], String and Spring's streaming types never reach Jackson
+    if (raw == Object.class
+        || raw == void.class
+        || raw == String.class
+        || raw.isArray()
+        || raw.getPackageName().startsWith("org.springframework")
+        || type.hasUnresolvableGenerics()) return;
+
+    writerFor(constructType(type.getType()), false);
+  }
+}
@@ -0,0 +1,55 @@
+package com.hedgecourt.spring.lib.json;
+
+import com.hedgecourt.spring.lib.model.HcSerializedBody;
+import java.io.IOException;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Honors {@value HcObjectWriters#PRETTY_PARAM}=true for JSON that was serialized ahead of time and
+ * is returned as bytes, such as {@link HcSerializedBody}. The indented copy keeps the weak ETag of
+ * the compact body, so the not-modified check, which runs before this advice, covers both.
+ */
+@ControllerAdvice
+public class HcPrettyPrintAdvice implements ResponseBodyAdvice<Object> {
+
+  private final HcObjectWriters objectWriters;
+
+  public HcPrettyPrintAdvice(HcObjectWriters objectWriters) {
+    this.objectWriters = objectWriters;
+  }
+
+  @Override
+  public boolean supports(
+      MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return ByteArrayHttpMessageConverter.class.isAssignableFrom(converterType);
+  }
+
+  @Override
+  public Object beforeBodyWrite(
+      Object body,
+      MethodParameter returnType,
+      MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+      ServerHttpRequest request,
+      ServerHttpResponse response) {
+    if (!(body instanceof byte[] json)
+        || !MediaType.APPLICATION_JSON.isCompatibleWith(selectedContentType)
+        || !(request instanceof ServletServerHttpRequest servletRequest)
+        || !HcObjectWriters.prettyRequested(servletRequest.getServletRequest())) return body;
+
+    try {
+      return objectWriters.prettyPrint(json);
+    } catch (IOException e) {
+      // not parseable after all, the compact body is still correct
+      return body;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.hedgecourt.spring.lib.model;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Prefixed authorities of one {@link HcScopeSet}, see {@link HcScopeSet#scopeAuthorities()}. Keeps
+ * the set it was built from, so {@link HcScopeSet#fromScopeAuthorities} gets it back without
+ * looking at the authority strings.
+ */
+final class HcScopeAuthorities extends AbstractSet<GrantedAuthority> {
+
+  private final HcScopeSet scopes;
+  private final Set<GrantedAuthority> authorities;
+
+  HcScopeAuthorities(HcScopeSet scopes) {
+    this.scopes = scopes;
+    Set<GrantedAuthority> prefixed = new LinkedHashSet<>();
+    for (String name : scopes.names())
+      prefixed.add(new SimpleGrantedAuthority(HcScopeSet.SCOPE_AUTHORITY_PREFIX + name));
+    this.authorities = Collections.unmodifiableSet(prefixed);
+  }
+
+  HcScopeSet scopes() {
+    return scopes;
+  }
+
+  @Override
+  public Iterator<GrantedAuthority> iterator() {
+    return authorities.iterator();
+  }
+
+  @Override
+  public int size() {
+    return authorities.size();
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return authorities.contains(o);
+  }
+}
@@ -0,0 +1,57 @@
+package com.hedgecourt.spring.lib.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process-wide interning of scope names to small dense ordinals, so a set of scopes can be held as
+ * a bitset (see {@link HcScopeSet}). Ordinals are handed out on first use and never reused; the
+ * number of distinct scopes in an HC deployment is small, so the registry does not need eviction.
+ * Only scopes the application knows about are interned, from the database and {@code @Secured}.
+ * Scopes a caller puts in a token are looked up, see {@link HcScopeSet#ofRegistered}, so they
+ * cannot grow the registry.
+ */
+public final class HcScopeRegistry {
+
+  private static final ConcurrentMap<String, Integer> ORDINALS = new ConcurrentHashMap<>();
+  private static final List<String> NAMES = new ArrayList<>();
+
+  private HcScopeRegistry() {}
+
+  /**
+   * @param scope scope name
+   * @return the ordinal of the scope, registering it if it has not been seen before
+   */
+  public static int intern(String scope) {
+    Integer ordinal = ORDINALS.get(scope);
+    if (ordinal != null) return ordinal;
+    return ORDINALS.computeIfAbsent(
+        scope,
+        name -> {
+          synchronized (NAMES) {
+            NAMES.add(name);
+            return NAMES.size() - 1;
+          }
+        });
+  }
+
+  /**
+   * @param scope scope name
+   * @return the ordinal of the scope, or -1 if no set has ever contained it
+   */
+  public static int lookup(String scope) {
+    return ORDINALS.getOrDefault(scope, -1);
+  }
+
+  static int size() {
+    return ORDINALS.size();
+  }
+
+  public static String nameOf(int ordinal) {
+    synchronized (NAMES) {
+      return NAMES.get(ordinal);
+    }
+  }
+}
@@ -0,0 +1,210 @@
+package com.hedgecourt.spring.lib.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Immutable set of scopes stored as a bitset over {@link HcScopeRegistry} ordinals. Membership is a
+ * bit test and two sets are equal when their bits are, which makes instances cheap map keys. The
+ * granted authorities for a set are built once per distinct set and shared by every user holding
+ * the same scopes.
+ */
+public final class HcScopeSet {
+
+  public static final HcScopeSet EMPTY = new HcScopeSet(new long[0]);
+
+  /** Prefix of the authorities a resource server derives from JWT scopes. */
+  public static final String SCOPE_AUTHORITY_PREFIX = "SCOPE_";
+
+  /**
+   * Distinct scope sets memoized per map. Real deployments hold a handful, a caller choosing its
+   * token scopes could mint many more, so a full map starts over rather than keep growing.
+   */
+  static final int MEMOIZED_SETS_LIMIT = 1024;
+
+  private static final ConcurrentMap<HcScopeSet, Set<GrantedAuthority>> AUTHORITIES =
+      new ConcurrentHashMap<>();
+
+  private static final ConcurrentMap<HcScopeSet, Set<GrantedAuthority>> SCOPE_AUTHORITIES =
+      new ConcurrentHashMap<>();
+
+  /** Trailing zero words are trimmed, so equal sets always have equal arrays. */
+  private final long[] words;
+
+  private final int hash;
+
+  private HcScopeSet(long[] words) {
+    this.words = words;
+    this.hash = Arrays.hashCode(words);
+  }
+
+  public static HcScopeSet of(Collection<String> scopes) {
+    if (scopes == null || scopes.isEmpty()) return EMPTY;
+    long[] words = new long[0];
+    for (String scope : scopes) {
+      int ordinal = HcScopeRegistry.intern(scope);
+      int word = ordinal >>> 6;
+      if (word >= words.length) words = Arrays.copyOf(words, word + 1);
+      words[word] |= 1L << ordinal;
+    }
+    return new HcScopeSet(words);
+  }
+
+  /**
+   * Like {@link #of(Collection)}, but for scopes a caller chose, such as those in a token. Scopes
+   * that are not registered are left out instead of interned, no registered requirement can name
+   * them anyway.
+   */
+  public static HcScopeSet ofRegistered(Collection<String> scopes) {
+    if (scopes == null || scopes.isEmpty()) return EMPTY;
+    long[] words = new long[0];
+    for (String scope : scopes) {
+      int ordinal = HcScopeRegistry.lookup(scope);
+      if (ordinal < 0) continue;
+      int word = ordinal >>> 6;
+      if (word >= words.length) words = Arrays.copyOf(words, word + 1);
+      words[word] |= 1L << ordinal;
+    }
+    return words.length == 0 ? EMPTY : new HcScopeSet(words);
+  }
+
+  /**
+   * @return the set behind memoized {@link #scopeAuthorities()}, or null for any other collection
+   */
+  public static HcScopeSet fromScopeAuthorities(
+      Collection<? extends GrantedAuthority> authorities) {
+    return authorities instanceof HcScopeAuthorities
+        ? ((HcScopeAuthorities) authorities).scopes()
+        : null;
+  }
+
+  public boolean contains(String scope) {
+    int ordinal = HcScopeRegistry.lookup(scope);
+    if (ordinal < 0) return false;
+    int word = ordinal >>> 6;
+    return word < words.length && (words[word] & (1L << ordinal)) != 0;
+  }
+
+  /**
+   * @param other required scopes
+   * @return true when every scope of {@code other} is also in this set
+   */
+  public boolean containsAll(HcScopeSet other) {
+    if (other.words.length > words.length) return false;
+    for (int i = 0; i < other.words.length; i++) {
+      if ((other.words[i] & ~words[i]) != 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return true when the sets share at least one scope
+   */
+  public boolean intersects(HcScopeSet other) {
+    int length = Math.min(words.length, other.words.length);
+    for (int i = 0; i < length; i++) {
+      if ((words[i] & other.words[i]) != 0) return true;
+    }
+    return false;
+  }
+
+  public HcScopeSet union(HcScopeSet other) {
+    if (other.words.length == 0) return this;
+    if (words.length == 0) return other;
+    long[] union = Arrays.copyOf(words, Math.max(words.length, other.words.length));
+    for (int i = 0; i < other.words.length; i++) union[i] |= other.words[i];
+    return new HcScopeSet(union);
+  }
+
+  public HcScopeSet intersect(HcScopeSet other) {
+    int length = Math.min(words.length, other.words.length);
+    long[] intersection = new long[length];
+    for (int i = 0; i < length; i++) intersection[i] = words[i] & other.words[i];
+    while (length > 0 && intersection[length - 1] == 0) length--;
+    if (length == 0) return EMPTY;
+    return new HcScopeSet(Arrays.copyOf(intersection, length));
+  }
+
+  public boolean isEmpty() {
+    return words.length == 0;
+  }
+
+  public int size() {
+    int size = 0;
+    for (long word : words) size += Long.bitCount(word);
+    return size;
+  }
+
+  public Set<String> names() {
+    Set<String> names = new LinkedHashSet<>();
+    for (int i = 0; i < words.length; i++) {
+      long word = words[i];
+      while (word != 0) {
+        names.add(HcScopeRegistry.nameOf((i << 6) + Long.numberOfTrailingZeros(word)));
+        word &= word - 1;
+      }
+    }
+    return Collections.unmodifiableSet(names);
+  }
+
+  /**
+   * @return unmodifiable authorities for this set, memoized per distinct set
+   */
+  public Set<GrantedAuthority> authorities() {
+    return memoize(AUTHORITIES, this, HcScopeSet::buildAuthorities);
+  }
+
+  /**
+   * @return unmodifiable {@code SCOPE_} authorities for this set, as a resource server derives them
+   *     from a JWT, memoized per distinct set
+   */
+  public Set<GrantedAuthority> scopeAuthorities() {
+    return memoize(SCOPE_AUTHORITIES, this, HcScopeAuthorities::new);
+  }
+
+  private static Set<GrantedAuthority> memoize(
+      ConcurrentMap<HcScopeSet, Set<GrantedAuthority>> memo,
+      HcScopeSet scopeSet,
+      Function<HcScopeSet, Set<GrantedAuthority>> build) {
+    Set<GrantedAuthority> authorities = memo.get(scopeSet);
+    if (authorities != null) return authorities;
+    if (memo.size() >= MEMOIZED_SETS_LIMIT) memo.clear();
+    return memo.computeIfAbsent(scopeSet, build);
+  }
+
+  /** Sets currently memoized, across both authority maps. */
+  static int memoizedSets() {
+    return AUTHORITIES.size() + SCOPE_AUTHORITIES.size();
+  }
+
+  private static Set<GrantedAuthority> buildAuthorities(HcScopeSet scopeSet) {
+    Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+    for (String name : scopeSet.names()) authorities.add(new SimpleGrantedAuthority(name));
+    return Collections.unmodifiableSet(authorities);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof HcScopeSet other)) return false;
+    return hash == other.hash && Arrays.equals(words, other.words);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return names().toString();
+  }
+}
@@ -0,0 +1,32 @@
+package com.hedgecourt.spring.lib.model;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+/**
+ * A response body that was rendered once and is served as raw bytes, together with an ETag derived
+ * from the content. Returning it through a {@link ResponseEntity} lets Spring MVC answer matching
+ * If-None-Match requests with a 304 and no body.
+ *
+ * <p>The ETag is weak: the same validator also names the {@code ?pretty=true} rendering of the
+ * body, which is semantically equivalent but not byte-identical, so either one revalidates.
+ *
+ * @param bytes the rendered body, never modified after construction
+ * @param etag weak ETag for the body
+ */
+public record HcSerializedBody(byte[] bytes, String etag) {
+
+  public static HcSerializedBody of(byte[] bytes) {
+    return new HcSerializedBody(bytes, "W/\"" + DigestUtils.md5DigestAsHex(bytes) + "\"");
+  }
+
+  public ResponseEntity<byte[]> toResponseEntity(CacheControl cacheControl) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .eTag(etag)
+        .cacheControl(cacheControl)
+        .body(bytes);
+  }
+}
@@ -2,27 +2,56 @@ package com.hedgecourt.spring.lib.model;
 
 import java.util.Collection;
 import java.util.Set;
-import java.util.stream.Collectors;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
-@Builder
 public class HcUserDetails implements UserDetails {
 
   private String username;
   private Set<String> scopes;
 
+  /** Bitset view of {@link #scopes}, built on first use and dropped by {@link #setScopes}. */
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @Setter(AccessLevel.NONE)
+  private transient HcScopeSet scopeSet;
+
+  @Builder
+  public HcUserDetails(String username, Set<String> scopes) {
+    this.username = username;
+    this.scopes = scopes;
+  }
+
+  public void setScopes(Set<String> scopes) {
+    this.scopes = scopes;
+    this.scopeSet = null;
+  }
+
+  public HcScopeSet getScopeSet() {
+    HcScopeSet current = scopeSet;
+    if (current == null) {
+      current = HcScopeSet.of(scopes);
+      scopeSet = current;
+    }
+    return current;
+  }
+
+  public boolean hasScope(String scope) {
+    return getScopeSet().contains(scope);
+  }
+
   @Override
   public Collection<? extends GrantedAuthority> getAuthorities() {
-    return scopes.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toSet());
+    return getScopeSet().authorities();
   }
 
   /**
@@ -0,0 +1,122 @@
+package com.hedgecourt.spring.lib.security;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * The auth failures every rejected request ends in, as RFC 7807 problem bodies rendered once when
+ * the class loads. Writing one sets constant headers and copies a shared byte array, no map, no
+ * Jackson, so turning away a flood of bad tokens costs next to nothing. Details are fixed per
+ * problem rather than echoing the exception, which also keeps usernames and token parsing errors
+ * out of responses.
+ *
+ * <p>A 401 for an API request carries a challenge as RFC 9110 requires, Bearer being the only
+ * scheme the API accepts, and token errors use the RFC 6750 error codes. Login failures carry none:
+ * the credentials travel in the body of the login request, not in an Authorization header, so there
+ * is no HTTP authentication scheme to ask the client for.
+ */
+public enum HcAuthProblem {
+  /** No bearer token, or not one we could find. */
+  MISSING_TOKEN(HttpStatus.UNAUTHORIZED, "Bearer", "A bearer token is required."),
+
+  INVALID_TOKEN(
+      HttpStatus.UNAUTHORIZED,
+      bearerError("invalid_token", "The access token is invalid or expired."),
+      "The access token is invalid or expired."),
+
+  /** More than one token, or a token in an unsupported place. */
+  INVALID_REQUEST(
+      HttpStatus.BAD_REQUEST,
+      bearerError("invalid_request", "The request carries a malformed bearer token."),
+      "The request carries a malformed bearer token."),
+
+  INSUFFICIENT_SCOPE(
+      HttpStatus.FORBIDDEN,
+      bearerError("insufficient_scope", "The access token lacks a scope this request needs."),
+      "The access token lacks a scope this request needs."),
+
+  /** Login with a wrong username or password. */
+  BAD_CREDENTIALS(HttpStatus.UNAUTHORIZED, null, "Bad credentials."),
+
+  ACCOUNT_LOCKED(HttpStatus.UNAUTHORIZED, null, "The account is locked."),
+
+  ACCOUNT_DISABLED(HttpStatus.UNAUTHORIZED, null, "The account is disabled."),
+
+  /** Any other account status that stops a login, such as an expired account or password. */
+  LOGIN_REJECTED(HttpStatus.UNAUTHORIZED, null, "The login was rejected."),
+
+  /** The authentication backend failed, not the caller. */
+  AUTHENTICATION_UNAVAILABLE(
+      HttpStatus.INTERNAL_SERVER_ERROR, null, "Authentication could not be completed.");
+
+  private static final String RFC_6750_ERROR_URI =
+      "https://tools.ietf.org/html/rfc6750#section-3.1";
+
+  private final HttpStatus status;
+  private final String wwwAuthenticate;
+  private final byte[] body;
+
+  /** Shared, an entity's headers are read-only. */
+  private final ResponseEntity<byte[]> responseEntity;
+
+  /**
+   * @param wwwAuthenticate the challenge, null for none
+   */
+  HcAuthProblem(HttpStatus status, String wwwAuthenticate, String detail) {
+    this.status = status;
+    this.wwwAuthenticate = wwwAuthenticate;
+    // fixed ASCII text, nothing to escape
+    this.body =
+        ("{\"type\":\"about:blank\",\"title\":\""
+                + status.getReasonPhrase()
+                + "\",\"status\":"
+                + status.value()
+                + ",\"detail\":\""
+                + detail
+                + "\"}")
+            .getBytes(StandardCharsets.UTF_8);
+    ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+    if (wwwAuthenticate != null) builder.header(HttpHeaders.WWW_AUTHENTICATE, wwwAuthenticate);
+    this.responseEntity = builder.contentType(MediaType.APPLICATION_PROBLEM_JSON).body(body);
+  }
+
+  private static String bearerError(String code, String description) {
+    return "Bearer error=\""
+        + code
+        + "\", error_description=\""
+        + description
+        + "\", error_uri=\""
+        + RFC_6750_ERROR_URI
+        + "\"";
+  }
+
+  public HttpStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * @return the challenge, or null when the problem is sent without one
+   */
+  public String getWwwAuthenticate() {
+    return wwwAuthenticate;
+  }
+
+  /** For failures that reach a controller advice. */
+  public ResponseEntity<byte[]> toResponseEntity() {
+    return responseEntity;
+  }
+
+  /** For failures handled in the security filter chain, before Spring MVC. */
+  public void write(HttpServletResponse response) throws IOException {
+    response.setStatus(status.value());
+    if (wwwAuthenticate != null) response.setHeader(HttpHeaders.WWW_AUTHENTICATE, wwwAuthenticate);
+    response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+}
@@ -0,0 +1,85 @@
+package com.hedgecourt.spring.lib.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AccountStatusException;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.access.AccessDeniedHandler;
+
+/**
+ * Answers the resource server's authentication and authorization failures with the pre-rendered
+ * {@link HcAuthProblem}s, in place of Spring's bearer token entry point and access denied handler.
+ * Status codes and challenges are the ones Spring sends, the error descriptions are fixed.
+ */
+public class HcAuthProblemHandler implements AuthenticationEntryPoint, AccessDeniedHandler {
+
+  private static final Logger log = LoggerFactory.getLogger(HcAuthProblemHandler.class);
+
+  @Override
+  public void commence(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      AuthenticationException authException)
+      throws IOException {
+    HcAuthProblem problem = problemFor(authException);
+    if (log.isDebugEnabled())
+      log.debug(
+          "rejecting {} {} with {}: {}",
+          request.getMethod(),
+          request.getRequestURI(),
+          problem,
+          authException.getMessage());
+    problem.write(response);
+  }
+
+  @Override
+  public void handle(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      AccessDeniedException accessDeniedException)
+      throws IOException {
+    if (log.isDebugEnabled())
+      log.debug(
+          "denying {} {}: {}",
+          request.getMethod(),
+          request.getRequestURI(),
+          accessDeniedException.getMessage());
+    HcAuthProblem.INSUFFICIENT_SCOPE.write(response);
+  }
+
+  /**
+   * Maps an authentication failure to its problem, for the filter chain and for failures that reach
+   * a controller advice, such as a rejected login or method security finding no authentication.
+   */
+  public static HcAuthProblem problemFor(AuthenticationException authException) {
+    if (authException instanceof OAuth2AuthenticationException oauth2Exception)
+      return switch (oauth2Exception.getError().getErrorCode()) {
+        case OAuth2ErrorCodes.INVALID_REQUEST -> HcAuthProblem.INVALID_REQUEST;
+        case OAuth2ErrorCodes.INSUFFICIENT_SCOPE -> HcAuthProblem.INSUFFICIENT_SCOPE;
+        default -> HcAuthProblem.INVALID_TOKEN;
+      };
+
+    if (authException instanceof BadCredentialsException
+        || authException instanceof UsernameNotFoundException) return HcAuthProblem.BAD_CREDENTIALS;
+    if (authException instanceof LockedException) return HcAuthProblem.ACCOUNT_LOCKED;
+    if (authException instanceof DisabledException) return HcAuthProblem.ACCOUNT_DISABLED;
+    if (authException instanceof AccountStatusException) return HcAuthProblem.LOGIN_REJECTED;
+    if (authException instanceof AuthenticationServiceException)
+      return HcAuthProblem.AUTHENTICATION_UNAVAILABLE;
+
+    // no token found, AuthenticationCredentialsNotFoundException from method security and the like
+    return HcAuthProblem.MISSING_TOKEN;
+  }
+}
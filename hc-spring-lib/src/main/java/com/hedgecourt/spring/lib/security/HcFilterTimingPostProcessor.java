@@ -0,0 +1,63 @@
+package com.hedgecourt.spring.lib.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.web.DefaultSecurityFilterChain;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.ForwardedHeaderFilter;
+
+/**
+ * Wraps every filter of each {@link DefaultSecurityFilterChain} bean, and the {@link
+ * ForwardedHeaderFilter} that runs ahead of the security chains, in a {@link HcTimedFilter}. The
+ * chain tag is the chain's bean name, {@code servlet} for the forwarded header filter.
+ *
+ * <p>Only registered when {@code hc.security.filter-timing.enabled} is true. Off by default,
+ * nothing is wrapped then and the filter chains run exactly as configured.
+ */
+@Component
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnProperty(name = "hc.security.filter-timing.enabled", havingValue = "true")
+public class HcFilterTimingPostProcessor implements BeanPostProcessor {
+
+  private static final Logger log = LoggerFactory.getLogger(HcFilterTimingPostProcessor.class);
+
+  private final ObjectProvider<MeterRegistry> meterRegistry;
+
+  public HcFilterTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof DefaultSecurityFilterChain chain) {
+      MeterRegistry registry = meterRegistry.getIfAvailable();
+      if (registry == null) return bean;
+
+      List<Filter> timed = new ArrayList<>(chain.getFilters().size());
+      chain
+          .getFilters()
+          .forEach(filter -> timed.add(new HcTimedFilter(filter, beanName, registry)));
+      if (log.isInfoEnabled())
+        log.info("timing {} filters of security filter chain {}", timed.size(), beanName);
+      return new DefaultSecurityFilterChain(chain.getRequestMatcher(), timed);
+    }
+
+    if (bean instanceof ForwardedHeaderFilter filter) {
+      MeterRegistry registry = meterRegistry.getIfAvailable();
+      if (registry == null) return bean;
+
+      if (log.isInfoEnabled()) log.info("timing servlet filter {}", beanName);
+      return new HcTimedFilter(filter, "servlet", registry);
+    }
+
+    return bean;
+  }
+}
@@ -0,0 +1,47 @@
+package com.hedgecourt.spring.lib.security;
+
+import java.util.Collection;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * Builds the same {@link JwtAuthenticationToken} as Spring's {@code JwtAuthenticationConverter}
+ * with {@link HcScopeAuthoritiesConverter}, named by the {@code sub} claim. The stock token copies
+ * its authorities into a new list, which loses the memoized set, so this token hands back the
+ * collection the converter returned and {@link
+ * com.hedgecourt.spring.lib.model.HcScopeSet#fromScopeAuthorities} still finds the bitset.
+ */
+public class HcJwtAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+
+  private final HcScopeAuthoritiesConverter authoritiesConverter =
+      new HcScopeAuthoritiesConverter();
+
+  @Override
+  public AbstractAuthenticationToken convert(Jwt jwt) {
+    return new HcJwtAuthenticationToken(
+        jwt, authoritiesConverter.convert(jwt), jwt.getClaimAsString(JwtClaimNames.SUB));
+  }
+
+  private static final class HcJwtAuthenticationToken extends JwtAuthenticationToken {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Not serialized, a deserialized token falls back to the copied list. */
+    private final transient Collection<GrantedAuthority> scopeAuthorities;
+
+    private HcJwtAuthenticationToken(
+        Jwt jwt, Collection<GrantedAuthority> authorities, String name) {
+      super(jwt, authorities, name);
+      this.scopeAuthorities = authorities;
+    }
+
+    @Override
+    public Collection<GrantedAuthority> getAuthorities() {
+      return scopeAuthorities == null ? super.getAuthorities() : scopeAuthorities;
+    }
+  }
+}
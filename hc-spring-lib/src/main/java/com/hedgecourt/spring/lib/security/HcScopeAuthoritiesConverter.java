@@ -0,0 +1,57 @@
+package com.hedgecourt.spring.lib.security;
+
+import com.hedgecourt.spring.lib.model.HcScopeSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Same {@code SCOPE_} authorities as the default {@code JwtGrantedAuthoritiesConverter}, read from
+ * the {@code scope} or {@code scp} claim as a list or a space-delimited string, but returned as the
+ * memoized {@link HcScopeSet#scopeAuthorities()} of the token's scopes. Tokens with the same scopes
+ * share one authority set, which authorization reads the scope bitset back from. A token carrying a
+ * scope the application has never registered gets plain authorities, so made-up scopes are neither
+ * interned nor memoized.
+ */
+public class HcScopeAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+  private static final List<String> SCOPE_CLAIMS = List.of("scope", "scp");
+
+  @Override
+  public Collection<GrantedAuthority> convert(Jwt jwt) {
+    for (String claim : SCOPE_CLAIMS) {
+      Object value = jwt.getClaim(claim);
+      if (value instanceof String scopes) {
+        return authorities(splitScopes(scopes));
+      }
+      if (value instanceof Collection<?> scopes) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Object scope : scopes) names.add(scope.toString());
+        return authorities(names);
+      }
+    }
+    return HcScopeSet.EMPTY.scopeAuthorities();
+  }
+
+  private static Collection<GrantedAuthority> authorities(Set<String> names) {
+    HcScopeSet registered = HcScopeSet.ofRegistered(names);
+    if (registered.size() == names.size()) return registered.scopeAuthorities();
+
+    List<GrantedAuthority> authorities = new ArrayList<>(names.size());
+    for (String name : names)
+      authorities.add(new SimpleGrantedAuthority(HcScopeSet.SCOPE_AUTHORITY_PREFIX + name));
+    return authorities;
+  }
+
+  private static Set<String> splitScopes(String scopes) {
+    Set<String> names = new LinkedHashSet<>();
+    for (String scope : scopes.split(" ")) if (!scope.isEmpty()) names.add(scope);
+    return names;
+  }
+}
@@ -0,0 +1,131 @@
+package com.hedgecourt.spring.lib.security;
+
+import com.hedgecourt.spring.lib.model.HcScopeSet;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * Decides {@link Secured} the way Spring's {@code SecuredAuthorizationManager} does, any listed
+ * authority grants access, with the work moved out of the call path:
+ *
+ * <ul>
+ *   <li>each secured method's {@code SCOPE_} attributes are resolved to an {@link HcScopeSet} once,
+ *       for every controller method when the context starts and on first call for anything else
+ *   <li>callers authenticated by JWT carry memoized {@link HcScopeSet#scopeAuthorities()}, so their
+ *       scopes are read off the authority set instead of being compared string by string
+ *   <li>the decision is one bitset intersection and a shared, immutable {@link
+ *       AuthorizationDecision}
+ * </ul>
+ *
+ * Other authorities, and attributes without the {@code SCOPE_} prefix, are matched as strings like
+ * Spring does.
+ */
+public class HcSecuredAuthorizationManager
+    implements AuthorizationManager<MethodInvocation>, ApplicationListener<ContextRefreshedEvent> {
+
+  private static final Logger log = LoggerFactory.getLogger(HcSecuredAuthorizationManager.class);
+
+  private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+  private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+  private static final Requirement NOT_SECURED = new Requirement(false, HcScopeSet.EMPTY, Set.of());
+
+  private final ConcurrentMap<MethodClassKey, Requirement> requirements = new ConcurrentHashMap<>();
+
+  /**
+   * @param secured false when there is nothing to check and the manager abstains
+   * @param scopes scopes of the {@code SCOPE_} attributes
+   * @param attributes all attributes, for authorities that are not memoized scope authorities
+   */
+  private record Requirement(boolean secured, HcScopeSet scopes, Set<String> attributes) {}
+
+  @Override
+  public AuthorizationDecision check(
+      Supplier<Authentication> authentication, MethodInvocation invocation) {
+    Object target = invocation.getThis();
+    Requirement requirement =
+        requirement(invocation.getMethod(), target == null ? null : target.getClass());
+    if (!requirement.secured()) return null;
+    return isGranted(authentication.get(), requirement) ? GRANTED : DENIED;
+  }
+
+  private static boolean isGranted(Authentication authentication, Requirement requirement) {
+    if (authentication == null) return false;
+    Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
+
+    HcScopeSet granted = HcScopeSet.fromScopeAuthorities(authorities);
+    if (granted != null && granted.intersects(requirement.scopes())) return true;
+
+    // not from a JWT, or only a non-scope attribute can still grant
+    for (GrantedAuthority authority : authorities) {
+      if (requirement.attributes().contains(authority.getAuthority())) return true;
+    }
+    return false;
+  }
+
+  private Requirement requirement(Method method, Class<?> targetClass) {
+    MethodClassKey key = new MethodClassKey(method, targetClass);
+    Requirement requirement = requirements.get(key);
+    if (requirement != null) return requirement;
+    return requirements.computeIfAbsent(key, k -> resolve(method, targetClass));
+  }
+
+  private static Requirement resolve(Method method, Class<?> targetClass) {
+    Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+    Secured secured = AnnotatedElementUtils.findMergedAnnotation(specificMethod, Secured.class);
+    if (secured == null)
+      secured =
+          AnnotatedElementUtils.findMergedAnnotation(
+              specificMethod.getDeclaringClass(), Secured.class);
+    if (secured == null || secured.value().length == 0) return NOT_SECURED;
+
+    List<String> scopes = new ArrayList<>();
+    for (String attribute : secured.value()) {
+      if (attribute.startsWith(HcScopeSet.SCOPE_AUTHORITY_PREFIX))
+        scopes.add(attribute.substring(HcScopeSet.SCOPE_AUTHORITY_PREFIX.length()));
+    }
+    // Set.of rejects duplicates, @Secured may list an attribute twice
+    return new Requirement(true, HcScopeSet.of(scopes), Set.copyOf(Arrays.asList(secured.value())));
+  }
+
+  /** Resolves every controller method up front, so no request pays for the annotation lookup. */
+  @Override
+  public void onApplicationEvent(ContextRefreshedEvent event) {
+    event
+        .getApplicationContext()
+        .getBeansOfType(RequestMappingHandlerMapping.class)
+        .values()
+        .forEach(
+            handlerMapping ->
+                handlerMapping
+                    .getHandlerMethods()
+                    .values()
+                    .forEach(
+                        handlerMethod ->
+                            requirement(handlerMethod.getMethod(), handlerMethod.getBeanType())));
+
+    if (log.isDebugEnabled())
+      log.debug("resolved @Secured requirements for {} methods", requirements.size());
+  }
+}
@@ -0,0 +1,116 @@
+package com.hedgecourt.spring.lib.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.OrderUtils;
+
+/**
+ * Times a filter's own work, the time spent further down the chain is subtracted. Recorded in
+ * {@value #TIMER} per chain, filter and outcome:
+ *
+ * <ul>
+ *   <li>{@code proceeded} the filter passed the request on
+ *   <li>{@code handled} the filter answered the request itself, a 401 or a CORS preflight
+ *   <li>{@code error} the filter or something below it threw
+ * </ul>
+ */
+final class HcTimedFilter implements Filter, Ordered {
+
+  static final String TIMER = "hc.security.filter";
+
+  private final Filter delegate;
+  private final int order;
+  private final Timer proceeded;
+  private final Timer handled;
+  private final Timer error;
+
+  HcTimedFilter(Filter delegate, String chain, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.order =
+        delegate instanceof Ordered ordered
+            ? ordered.getOrder()
+            : OrderUtils.getOrder(delegate.getClass(), Ordered.LOWEST_PRECEDENCE);
+
+    String filter = delegate.getClass().getSimpleName();
+    this.proceeded = timer(meterRegistry, chain, filter, "proceeded");
+    this.handled = timer(meterRegistry, chain, filter, "handled");
+    this.error = timer(meterRegistry, chain, filter, "error");
+  }
+
+  private static Timer timer(
+      MeterRegistry meterRegistry, String chain, String filter, String outcome) {
+    return Timer.builder(TIMER)
+        .description("Time spent in a servlet filter, excluding the rest of the chain")
+        .tag("chain", chain)
+        .tag("filter", filter)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+      throws IOException, ServletException {
+    Downstream downstream = new Downstream(chain);
+    long start = System.nanoTime();
+    Timer outcome = error;
+    try {
+      delegate.doFilter(request, response, downstream);
+      outcome = downstream.invoked ? proceeded : handled;
+    } finally {
+      outcome.record(System.nanoTime() - start - downstream.nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Override
+  public void init(FilterConfig filterConfig) throws ServletException {
+    delegate.init(filterConfig);
+  }
+
+  @Override
+  public void destroy() {
+    delegate.destroy();
+  }
+
+  @Override
+  public int getOrder() {
+    return order;
+  }
+
+  @Override
+  public String toString() {
+    return "HcTimedFilter[" + delegate + "]";
+  }
+
+  /** Passes the request on and keeps how long the rest of the chain took. */
+  private static final class Downstream implements FilterChain {
+    private final FilterChain chain;
+    private boolean invoked;
+    private long nanos;
+
+    Downstream(FilterChain chain) {
+      this.chain = chain;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response)
+        throws IOException, ServletException {
+      invoked = true;
+      long start = System.nanoTime();
+      try {
+        chain.doFilter(request, response);
+      } finally {
+        nanos += System.nanoTime() - start;
+      }
+    }
+  }
+}
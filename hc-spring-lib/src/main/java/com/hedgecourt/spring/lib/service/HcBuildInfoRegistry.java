@@ -0,0 +1,121 @@
+package com.hedgecourt.spring.lib.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hedgecourt.spring.lib.dto.BuildInfoDto;
+import com.hedgecourt.spring.lib.dto.BuildInfoRuntimeDto;
+import com.hedgecourt.spring.lib.error.BuildInfoException;
+import com.hedgecourt.spring.lib.model.HcSerializedBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+/**
+ * Scans the classpath for the META-INF/build-info.[ARTIFACT_ID].properties files once at startup
+ * and keeps them, with the JVM details of {@link BuildInfoRuntimeDto}, as a pre-serialized body.
+ * Neither changes while the application runs, so every request gets the same bytes and ETag.
+ */
+@Service
+public class HcBuildInfoRegistry {
+  private static final Logger log = LoggerFactory.getLogger(HcBuildInfoRegistry.class);
+
+  private static final String LOCATION_PATTERN = "classpath*:META-INF/build-info*properties";
+  private static final Pattern MODULE_PATTERN =
+      Pattern.compile("META-INF/build-info\\.(.*)\\.properties");
+
+  private final HcSerializedBody body;
+
+  /** Set instead of {@link #body} when the scan failed, rethrown to every request. */
+  private final BuildInfoException failure;
+
+  public HcBuildInfoRegistry(
+      ObjectMapper objectMapper,
+      @Value("${hc.env}") String hcEnv,
+      @Value("${spring.application.name}") String springApplicationName,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled) {
+    HcSerializedBody serialized = null;
+    BuildInfoException scanFailure = null;
+    try {
+      BuildInfoDto scanned =
+          BuildInfoDto.builder()
+              .hcEnv(hcEnv)
+              .springApplicationName(springApplicationName)
+              .buildInfo(scan())
+              .runtime(runtime(virtualThreadsEnabled))
+              .build();
+      serialized = HcSerializedBody.of(objectMapper.writeValueAsBytes(scanned));
+      if (log.isInfoEnabled())
+        log.info(
+            "indexed build info, modules={} etag={}",
+            scanned.getBuildInfo().keySet(),
+            serialized.etag());
+    } catch (IOException e) {
+      // also covers the serialization, a JsonProcessingException is an IOException
+      log.error("Failed scanning for META-INF/build-info.(.*).properties", e);
+      scanFailure = new BuildInfoException(e);
+    }
+    this.body = serialized;
+    this.failure = scanFailure;
+  }
+
+  public HcSerializedBody getBody() {
+    if (failure != null) throw failure;
+    return body;
+  }
+
+  /** Sorted, so the serialized body and its ETag only change when the build info does. */
+  private static Map<String, Map<String, String>> scan() throws IOException {
+    Map<String, Map<String, String>> buildInfoMap = new TreeMap<>();
+    for (Resource resource :
+        new PathMatchingResourcePatternResolver().getResources(LOCATION_PATTERN)) {
+      Matcher matcher = MODULE_PATTERN.matcher(resource.toString());
+      if (!matcher.find()) continue;
+
+      Properties properties = new Properties();
+      try (InputStream in = resource.getInputStream()) {
+        properties.load(in);
+      }
+
+      Map<String, String> propertiesMap = new TreeMap<>();
+      for (String key : properties.stringPropertyNames()) {
+        propertiesMap.put(key, properties.getProperty(key));
+      }
+      buildInfoMap.put(matcher.group(1), Collections.unmodifiableMap(propertiesMap));
+    }
+    return Collections.unmodifiableMap(buildInfoMap);
+  }
+
+  private static BuildInfoRuntimeDto runtime(boolean virtualThreadsEnabled) {
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    return BuildInfoRuntimeDto.builder()
+        .javaVersion(Runtime.version().toString())
+        .javaVendor(System.getProperty("java.vendor"))
+        .vmName(System.getProperty("java.vm.name"))
+        .startTime(
+            Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime()).toString())
+        .availableProcessors(Runtime.getRuntime().availableProcessors())
+        .garbageCollectors(
+            ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .map(GarbageCollectorMXBean::getName)
+                .toList())
+        .heapInitBytes(heap.getInit())
+        .heapMaxBytes(heap.getMax())
+        // spring.threads.virtual.enabled is ignored before Java 21
+        .virtualThreads(virtualThreadsEnabled && Runtime.version().feature() >= 21)
+        .build();
+  }
+}
@@ -0,0 +1,152 @@
+package com.hedgecourt.spring.lib.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * Ant path patterns compiled once into a hash set of exact paths and a segment trie, matching the
+ * same requests an {@code OrRequestMatcher} of {@link AntPathRequestMatcher}s would. Literal paths
+ * and {@code /prefix/**} globs, which is what {@code @HcPublicEndpoint} and the swagger paths
+ * produce, are answered in one pass over the request path. Any other pattern keeps its {@link
+ * AntPathRequestMatcher} and is only tried when the trie does not match.
+ */
+public final class HcPublicPathsMatcher implements RequestMatcher {
+
+  private static final String MATCH_ALL = "/**";
+  private static final String SUBPATH_SUFFIX = "/**";
+
+  private final Set<String> exactPaths;
+  private final Node root;
+  private final List<RequestMatcher> fallbacks;
+
+  private HcPublicPathsMatcher(Set<String> exactPaths, Node root, List<RequestMatcher> fallbacks) {
+    this.exactPaths = exactPaths;
+    this.root = root;
+    this.fallbacks = fallbacks;
+  }
+
+  public static HcPublicPathsMatcher compile(Collection<String> patterns) {
+    Set<String> exactPaths = new HashSet<>();
+    Node root = new Node();
+    List<RequestMatcher> fallbacks = new ArrayList<>();
+
+    for (String pattern : patterns) {
+      if (MATCH_ALL.equals(pattern)) {
+        root.subpath = true;
+      } else if (isLiteral(pattern)) {
+        exactPaths.add(pattern);
+        root.insert(pattern).exact = true;
+      } else if (pattern.endsWith(SUBPATH_SUFFIX)
+          && isLiteral(pattern.substring(0, pattern.length() - SUBPATH_SUFFIX.length()))) {
+        root.insert(pattern.substring(0, pattern.length() - SUBPATH_SUFFIX.length())).subpath =
+            true;
+      } else {
+        fallbacks.add(new AntPathRequestMatcher(pattern));
+      }
+    }
+    return new HcPublicPathsMatcher(exactPaths, root, fallbacks);
+  }
+
+  /**
+   * Absolute, wildcard free and without empty or trailing segments, so its trie path spells out the
+   * pattern exactly.
+   */
+  private static boolean isLiteral(String pattern) {
+    return pattern.length() > 1
+        && pattern.charAt(0) == '/'
+        && !pattern.endsWith("/")
+        && !pattern.contains("//")
+        && pattern.chars().noneMatch(c -> c == '*' || c == '?' || c == '{' || c == '}');
+  }
+
+  @Override
+  public boolean matches(HttpServletRequest request) {
+    return matches(requestPath(request)) || matchesFallback(request);
+  }
+
+  /**
+   * @param path servlet path plus path info, as {@link AntPathRequestMatcher} sees the request
+   */
+  boolean matches(String path) {
+    return exactPaths.contains(path) || matchesTrie(path);
+  }
+
+  private boolean matchesFallback(HttpServletRequest request) {
+    for (RequestMatcher fallback : fallbacks) {
+      if (fallback.matches(request)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Walks the path one segment at a time. Like {@code AntPathMatcher}, literal patterns ignore
+   * empty segments but not a trailing slash, while {@code /prefix/**} compares the raw prefix, so
+   * it only applies while no empty segment has been skipped.
+   */
+  private boolean matchesTrie(String path) {
+    if (root.subpath) return true;
+    if (path.isEmpty() || path.charAt(0) != '/') return false;
+
+    Node node = root;
+    boolean raw = true;
+    int start = 1;
+    int length = path.length();
+    while (start < length) {
+      int end = path.indexOf('/', start);
+      if (end < 0) end = length;
+      if (end == start) {
+        raw = false;
+      } else {
+        node = node.children.get(path.substring(start, end));
+        if (node == null) return false;
+        if (node.subpath && raw) return true;
+      }
+      start = end + 1;
+    }
+    return node.exact && path.charAt(length - 1) != '/';
+  }
+
+  /** Same path {@link AntPathRequestMatcher} matches against. */
+  private static String requestPath(HttpServletRequest request) {
+    String url = request.getServletPath();
+    String pathInfo = request.getPathInfo();
+    if (pathInfo != null) url = StringUtils.hasLength(url) ? url + pathInfo : pathInfo;
+    return url;
+  }
+
+  @Override
+  public String toString() {
+    return "HcPublicPathsMatcher[exact="
+        + exactPaths.size()
+        + ", fallbacks="
+        + fallbacks.size()
+        + "]";
+  }
+
+  private static final class Node {
+    private final Map<String, Node> children = new HashMap<>();
+
+    /** A literal pattern ends here. */
+    private boolean exact;
+
+    /** A {@code /prefix/**} pattern ends here, everything below matches. */
+    private boolean subpath;
+
+    Node insert(String literal) {
+      Node node = this;
+      for (String segment : literal.substring(1).split("/")) {
+        node = node.children.computeIfAbsent(segment, s -> new Node());
+      }
+      return node;
+    }
+  }
+}
@@ -1,7 +1,6 @@
 package com.hedgecourt.spring.lib.service;
 
 import com.hedgecourt.spring.lib.annotation.HcPublicEndpoint;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -9,9 +8,8 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
-import org.springframework.security.web.util.matcher.OrRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.method.HandlerMethod;
@@ -23,13 +21,19 @@ public class HcPublicPathsMatcherService {
 
   private static final Logger log = LoggerFactory.getLogger(HcPublicPathsMatcherService.class);
 
+  private static final List<String> SWAGGER_PATHS =
+      List.of("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**");
+
   @Value("${hc.public-endpoints.swagger-enabled:true}")
   private boolean publicSwaggerEnabled;
 
   private final Set<String> publicPaths = new HashSet<>();
+  private final Set<String> bypassPaths = new HashSet<>();
 
   @Autowired
-  public HcPublicPathsMatcherService(RequestMappingHandlerMapping handlerMapping) {
+  public HcPublicPathsMatcherService(
+      // actuator registers its own handler mapping, we only care about the application controllers
+      @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping) {
     if (log.isDebugEnabled())
       log.debug("HcPublicPathsMatcherService() scanning for @HcPublicEndpoint");
 
@@ -42,16 +46,20 @@ public class HcPublicPathsMatcherService {
             pathInfo.getDirectPaths().forEach(path -> log.trace("path [{}]", path));
           }
 
-          if (handlerMethod.getMethodAnnotation(HcPublicEndpoint.class) != null) {
+          HcPublicEndpoint publicEndpoint =
+              handlerMethod.getMethodAnnotation(HcPublicEndpoint.class);
+          if (publicEndpoint != null) {
             if (log.isDebugEnabled())
               log.debug(
-                  "HcPublicEndpoint [{}.{}] [{}]",
+                  "HcPublicEndpoint [{}.{}] [{}] bypassFilterChain={}",
                   handlerMethod.getMethod().getDeclaringClass().getName(),
                   handlerMethod.getMethod().getName(),
-                  String.join(",", pathInfo.getDirectPaths()));
+                  String.join(",", pathInfo.getDirectPaths()),
+                  publicEndpoint.bypassFilterChain());
 
             if (!pathInfo.getDirectPaths().isEmpty()) {
               publicPaths.addAll(pathInfo.getDirectPaths());
+              if (publicEndpoint.bypassFilterChain()) bypassPaths.addAll(pathInfo.getDirectPaths());
             } else {
               if (log.isWarnEnabled())
                 log.warn(
@@ -70,28 +78,39 @@ public class HcPublicPathsMatcherService {
 
   /**
    * Paths matched by the returned RequestMatcher will be excluded from JWT processing, which in
-   * effect makes them public endpoints.
+   * effect makes them public endpoints. The paths are compiled into one {@link
+   * HcPublicPathsMatcher}, since every request runs through it.
    *
    * @return paths to exclude from JWT processing
    */
   public RequestMatcher getExcludedPathsMatcher() {
     if (log.isDebugEnabled()) log.debug("getExcludedPathsMatcher()");
 
-    List<RequestMatcher> paths = new ArrayList<>();
-
     if (publicSwaggerEnabled) {
       if (log.isDebugEnabled()) log.debug("enabling public swagger endpoints");
-      publicPaths.add("/swagger-ui.html");
-      publicPaths.add("/swagger-ui/**");
-      publicPaths.add("/v3/api-docs/**");
+      publicPaths.addAll(SWAGGER_PATHS);
     } else {
       if (log.isDebugEnabled()) log.debug("disabling public swagger endpoints, JWT required");
     }
 
     if (log.isInfoEnabled()) log.info("Hc Public Paths: {}", publicPaths);
 
-    publicPaths.forEach(path -> paths.add(new AntPathRequestMatcher(path)));
+    return HcPublicPathsMatcher.compile(publicPaths);
+  }
+
+  /**
+   * Paths matched by the returned RequestMatcher get a filter chain of their own that does no
+   * security work, see {@link HcPublicEndpoint#bypassFilterChain()}. Public swagger assets and api
+   * docs are always included.
+   *
+   * @return paths to serve without authentication work
+   */
+  public RequestMatcher getBypassPathsMatcher() {
+    Set<String> paths = new HashSet<>(bypassPaths);
+    if (publicSwaggerEnabled) paths.addAll(SWAGGER_PATHS);
+
+    if (log.isInfoEnabled()) log.info("Hc Bypass Paths: {}", paths);
 
-    return new OrRequestMatcher(paths);
+    return HcPublicPathsMatcher.compile(paths);
   }
 }
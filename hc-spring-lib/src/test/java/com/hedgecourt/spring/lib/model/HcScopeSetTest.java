@@ -0,0 +1,127 @@
+package com.hedgecourt.spring.lib.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hedgecourt.spring.lib.security.HcScopeAuthoritiesConverter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+public class HcScopeSetTest {
+
+  @Test
+  void of_ShouldSupportMembershipAndEqualityIndependentOfOrder() {
+    HcScopeSet a = HcScopeSet.of(List.of("test:read", "test:write"));
+    HcScopeSet b = HcScopeSet.of(List.of("test:write", "test:read"));
+
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    assertTrue(a.contains("test:read"));
+    assertFalse(a.contains("test:admin"));
+    assertFalse(a.contains("test:never-registered"));
+    assertEquals(2, a.size());
+    assertEquals(Set.of("test:read", "test:write"), a.names());
+  }
+
+  @Test
+  void containsAllUnionAndIntersect_ShouldWorkAcrossWords() {
+    // enough scopes to spill into a second long word
+    List<String> many =
+        IntStream.range(0, 80).mapToObj(i -> "test:bulk" + i).collect(Collectors.toList());
+    HcScopeSet all = HcScopeSet.of(many);
+    HcScopeSet first = HcScopeSet.of(many.subList(0, 3));
+    HcScopeSet last = HcScopeSet.of(many.subList(77, 80));
+
+    assertTrue(all.containsAll(first));
+    assertTrue(all.containsAll(last));
+    assertFalse(first.containsAll(last));
+    assertTrue(HcScopeSet.EMPTY.containsAll(HcScopeSet.EMPTY));
+    assertEquals(6, first.union(last).size());
+    assertTrue(first.union(last).containsAll(last));
+    assertEquals(last, all.intersect(last));
+    assertEquals(HcScopeSet.EMPTY, first.intersect(last));
+    assertEquals(HcScopeSet.of(List.of()), last.intersect(first));
+  }
+
+  @Test
+  void authorities_ShouldBeMemoizedPerDistinctSet() {
+    Set<GrantedAuthority> a = HcScopeSet.of(List.of("test:a", "test:b")).authorities();
+    Set<GrantedAuthority> b = HcScopeSet.of(List.of("test:b", "test:a")).authorities();
+
+    assertSame(a, b);
+    assertEquals(
+        Set.of("test:a", "test:b"),
+        a.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+  }
+
+  @Test
+  void scopeAuthorities_ShouldCarryTheirSetBack() {
+    HcScopeSet scopes = HcScopeSet.of(List.of("test:jwt-read", "test:jwt-write"));
+    Set<GrantedAuthority> authorities = scopes.scopeAuthorities();
+
+    assertSame(
+        authorities, HcScopeSet.of(List.of("test:jwt-write", "test:jwt-read")).scopeAuthorities());
+    assertEquals(
+        Set.of("SCOPE_test:jwt-read", "SCOPE_test:jwt-write"),
+        authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+    assertSame(scopes, HcScopeSet.fromScopeAuthorities(authorities));
+    assertNull(HcScopeSet.fromScopeAuthorities(Set.copyOf(authorities)));
+
+    assertTrue(scopes.intersects(HcScopeSet.of(List.of("test:jwt-write", "test:other"))));
+    assertFalse(scopes.intersects(HcScopeSet.of(List.of("test:other"))));
+  }
+
+  @Test
+  void hcUserDetails_ShouldDropBitsetWhenScopesChange() {
+    HcUserDetails userDetails = new HcUserDetails("someone", Set.of("test:a"));
+    assertTrue(userDetails.hasScope("test:a"));
+
+    userDetails.setScopes(Set.of("test:b"));
+    assertFalse(userDetails.hasScope("test:a"));
+    assertTrue(userDetails.hasScope("test:b"));
+  }
+
+  @Test
+  void tokenScopes_ShouldNotGrowTheRegistryOrTheMemoizedSets() {
+    HcScopeAuthoritiesConverter converter = new HcScopeAuthoritiesConverter();
+    HcScopeSet.of(List.of("test:token-known"));
+    int registered = HcScopeRegistry.size();
+    int memoized = HcScopeSet.memoizedSets();
+
+    for (int i = 0; i < 5000; i++) {
+      Jwt jwt =
+          Jwt.withTokenValue("token")
+              .header("alg", "none")
+              .claim("scope", "test:token-known test:token-made-up" + i)
+              .build();
+      Collection<GrantedAuthority> authorities = converter.convert(jwt);
+      assertEquals(
+          Set.of("SCOPE_test:token-known", "SCOPE_test:token-made-up" + i),
+          authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+    }
+    assertEquals(registered, HcScopeRegistry.size());
+    assertEquals(memoized, HcScopeSet.memoizedSets());
+
+    // registered scopes still combine into many distinct sets, the memo maps stay capped
+    List<String> known = IntStream.range(0, 12).mapToObj(i -> "test:combo" + i).toList();
+    for (int mask = 1; mask < 1 << known.size(); mask++) {
+      int bits = mask;
+      HcScopeSet.of(
+              IntStream.range(0, known.size())
+                  .filter(i -> (bits & (1 << i)) != 0)
+                  .mapToObj(known::get)
+                  .toList())
+          .scopeAuthorities();
+    }
+    assertTrue(HcScopeSet.memoizedSets() <= 2 * HcScopeSet.MEMOIZED_SETS_LIMIT);
+  }
+}
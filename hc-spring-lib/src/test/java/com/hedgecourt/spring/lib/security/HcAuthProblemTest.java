@@ -0,0 +1,92 @@
+package com.hedgecourt.spring.lib.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.server.resource.BearerTokenError;
+import org.springframework.security.oauth2.server.resource.BearerTokenErrors;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+
+public class HcAuthProblemTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void write_ShouldProduceProblemJsonMatchingItsStatus() throws Exception {
+    for (HcAuthProblem problem : HcAuthProblem.values()) {
+      MockHttpServletResponse response = new MockHttpServletResponse();
+      problem.write(response);
+
+      assertEquals(problem.getStatus().value(), response.getStatus(), problem.name());
+      assertEquals(MediaType.APPLICATION_PROBLEM_JSON_VALUE, response.getContentType());
+      assertEquals(problem.getWwwAuthenticate(), response.getHeader(HttpHeaders.WWW_AUTHENTICATE));
+
+      JsonNode body = objectMapper.readTree(response.getContentAsByteArray());
+      assertEquals("about:blank", body.get("type").asText());
+      assertEquals(problem.getStatus().getReasonPhrase(), body.get("title").asText());
+      assertEquals(problem.getStatus().value(), body.get("status").asInt());
+      assertEquals(response.getContentLength(), response.getContentAsByteArray().length);
+    }
+  }
+
+  @Test
+  void problemFor_ShouldFollowTheBearerTokenErrorCode() {
+    assertEquals(
+        HcAuthProblem.MISSING_TOKEN,
+        HcAuthProblemHandler.problemFor(new InsufficientAuthenticationException("no token")));
+    assertEquals(
+        HcAuthProblem.INVALID_TOKEN,
+        HcAuthProblemHandler.problemFor(new InvalidBearerTokenException("expired")));
+
+    BearerTokenError invalidRequest = BearerTokenErrors.invalidRequest("two tokens");
+    assertEquals(
+        HcAuthProblem.INVALID_REQUEST,
+        HcAuthProblemHandler.problemFor(new OAuth2AuthenticationException(invalidRequest)));
+  }
+
+  @Test
+  void problemFor_ShouldSeparateLoginFailures() {
+    assertEquals(
+        HcAuthProblem.BAD_CREDENTIALS,
+        HcAuthProblemHandler.problemFor(new BadCredentialsException("wrong password")));
+    assertEquals(
+        HcAuthProblem.ACCOUNT_LOCKED,
+        HcAuthProblemHandler.problemFor(new LockedException("locked")));
+    assertEquals(
+        HcAuthProblem.ACCOUNT_DISABLED,
+        HcAuthProblemHandler.problemFor(new DisabledException("disabled")));
+    assertEquals(
+        HcAuthProblem.LOGIN_REJECTED,
+        HcAuthProblemHandler.problemFor(new CredentialsExpiredException("expired")));
+    assertEquals(
+        HcAuthProblem.AUTHENTICATION_UNAVAILABLE,
+        HcAuthProblemHandler.problemFor(new AuthenticationServiceException("db down")));
+    assertEquals(
+        HcAuthProblem.MISSING_TOKEN,
+        HcAuthProblemHandler.problemFor(
+            new AuthenticationCredentialsNotFoundException("no authentication")));
+
+    // login failures are not HTTP authentication, there is no scheme to challenge with
+    assertNull(HcAuthProblem.BAD_CREDENTIALS.getWwwAuthenticate());
+    assertFalse(
+        HcAuthProblem.BAD_CREDENTIALS
+            .toResponseEntity()
+            .getHeaders()
+            .containsKey(HttpHeaders.WWW_AUTHENTICATE));
+  }
+}
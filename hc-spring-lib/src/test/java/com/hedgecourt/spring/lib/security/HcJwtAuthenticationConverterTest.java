@@ -0,0 +1,33 @@
+package com.hedgecourt.spring.lib.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.hedgecourt.spring.lib.model.HcScopeSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+public class HcJwtAuthenticationConverterTest {
+
+  @Test
+  void convert_ShouldKeepTheMemoizedScopeAuthorities() {
+    // registered the way @Secured attributes and database scopes are
+    HcScopeSet scopes = HcScopeSet.of(List.of("test:conv-read", "test:conv-write"));
+    Jwt jwt =
+        Jwt.withTokenValue("token")
+            .header("alg", "RS256")
+            .subject("alice")
+            .claim("scope", "test:conv-read test:conv-write")
+            .build();
+
+    AbstractAuthenticationToken token = new HcJwtAuthenticationConverter().convert(jwt);
+
+    assertEquals("alice", token.getName());
+    assertTrue(token.isAuthenticated());
+    assertSame(scopes.scopeAuthorities(), token.getAuthorities());
+    assertEquals(scopes, HcScopeSet.fromScopeAuthorities(token.getAuthorities()));
+  }
+}
@@ -0,0 +1,34 @@
+package com.hedgecourt.spring.lib.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+public class HcSecuredAuthorizationManagerTest {
+
+  private final HcSecuredAuthorizationManager manager = new HcSecuredAuthorizationManager();
+
+  static class Endpoints {
+    @Secured({"SCOPE_user:read", "SCOPE_user:read", "ROLE_ADMIN", "ROLE_ADMIN"})
+    void repeated() {}
+  }
+
+  @Test
+  void check_ShouldAcceptRepeatedSecuredAttributes() throws Exception {
+    SimpleMethodInvocation invocation =
+        new SimpleMethodInvocation(new Endpoints(), Endpoints.class.getDeclaredMethod("repeated"));
+
+    assertTrue(
+        manager
+            .check(() -> new TestingAuthenticationToken("u", null, "ROLE_ADMIN"), invocation)
+            .isGranted());
+    assertFalse(
+        manager
+            .check(() -> new TestingAuthenticationToken("u", null, "SCOPE_user:write"), invocation)
+            .isGranted());
+  }
+}
@@ -0,0 +1,124 @@
+package com.hedgecourt.spring.lib.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.Ordered;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class HcTimedFilterTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void doFilter_ShouldRecordOwnTimeByOutcome() throws Exception {
+    HcTimedFilter proceeding = new HcTimedFilter(new ProceedingFilter(), "main", meterRegistry);
+    HcTimedFilter handling = new HcTimedFilter(new HandlingFilter(), "main", meterRegistry);
+
+    // time spent further down the chain is not the filter's own
+    proceeding.doFilter(
+        new MockHttpServletRequest(),
+        new MockHttpServletResponse(),
+        new MockFilterChain(new jakarta.servlet.http.HttpServlet() {}, new SlowFilter()));
+    handling.doFilter(
+        new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+    Timer proceeded = timer("ProceedingFilter", "proceeded");
+    assertEquals(1, proceeded.count());
+    assertTrue(proceeded.totalTime(TimeUnit.MILLISECONDS) < SlowFilter.MILLIS);
+    assertEquals(0, timer("ProceedingFilter", "handled").count());
+    assertEquals(1, timer("HandlingFilter", "handled").count());
+    assertEquals(0, timer("HandlingFilter", "proceeded").count());
+  }
+
+  @Test
+  void doFilter_ShouldRecordErrors() {
+    HcTimedFilter failing = new HcTimedFilter(new FailingFilter(), "main", meterRegistry);
+
+    assertThrows(
+        ServletException.class,
+        () ->
+            failing.doFilter(
+                new MockHttpServletRequest(),
+                new MockHttpServletResponse(),
+                new MockFilterChain()));
+    assertEquals(1, timer("FailingFilter", "error").count());
+  }
+
+  @Test
+  void getOrder_ShouldKeepTheDelegatesOrder() {
+    assertEquals(
+        OrderedFilter.ORDER,
+        new HcTimedFilter(new OrderedFilter(), "servlet", meterRegistry).getOrder());
+    assertEquals(
+        Ordered.LOWEST_PRECEDENCE,
+        new HcTimedFilter(new HandlingFilter(), "servlet", meterRegistry).getOrder());
+  }
+
+  private Timer timer(String filter, String outcome) {
+    return meterRegistry
+        .get(HcTimedFilter.TIMER)
+        .tag("filter", filter)
+        .tag("outcome", outcome)
+        .timer();
+  }
+
+  private static class ProceedingFilter implements Filter {
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+        throws IOException, ServletException {
+      chain.doFilter(request, response);
+    }
+  }
+
+  private static class HandlingFilter implements Filter {
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) {}
+  }
+
+  private static class FailingFilter implements Filter {
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+        throws ServletException {
+      throw new ServletException("boom");
+    }
+  }
+
+  private static class SlowFilter implements Filter {
+    static final long MILLIS = 50;
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+        throws ServletException {
+      try {
+        Thread.sleep(MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ServletException(e);
+      }
+    }
+  }
+
+  private static class OrderedFilter extends HandlingFilter implements Ordered {
+    static final int ORDER = -100;
+
+    @Override
+    public int getOrder() {
+      return ORDER;
+    }
+  }
+}
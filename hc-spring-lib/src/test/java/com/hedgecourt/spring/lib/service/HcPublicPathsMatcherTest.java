@@ -0,0 +1,135 @@
+package com.hedgecourt.spring.lib.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+public class HcPublicPathsMatcherTest {
+
+  private static final List<String> PATTERNS =
+      List.of(
+          "/login",
+          "/nav",
+          "/nav/tree",
+          "/nav/events",
+          "/publicUsers",
+          "/.well-known/jwks.json",
+          "/swagger-ui.html",
+          "/swagger-ui/**",
+          "/v3/api-docs/**",
+          // not compiled into the trie, these stay AntPathRequestMatchers
+          "/files/*.txt",
+          "/users/{username}/avatar",
+          "/a/**/z");
+
+  private static final String[] SEGMENTS = {
+    "",
+    "login",
+    "nav",
+    "tree",
+    "events",
+    "publicUsers",
+    ".well-known",
+    "jwks.json",
+    "swagger-ui",
+    "swagger-ui.html",
+    "index.html",
+    "v3",
+    "api-docs",
+    "files",
+    "notes.txt",
+    "users",
+    "bob",
+    "avatar",
+    "a",
+    "b",
+    "z",
+    "NAV"
+  };
+
+  @Test
+  void matches_ShouldAgreeWithAntPathRequestMatchers() {
+    RequestMatcher expected = antMatchers(PATTERNS);
+    HcPublicPathsMatcher actual = HcPublicPathsMatcher.compile(PATTERNS);
+
+    List<String> paths =
+        new ArrayList<>(
+            List.of(
+                "",
+                "/",
+                "//",
+                "/nav",
+                "/nav/",
+                "//nav",
+                "/nav//tree",
+                "nav",
+                "/swagger-ui",
+                "/swagger-ui/",
+                "/swagger-uiX",
+                "//swagger-ui/index.html",
+                "/v3/api-docs",
+                "/v3//api-docs/x",
+                "/files/notes.txt",
+                "/users/bob/avatar",
+                "/a/b/b/z"));
+    Random random = new Random(44);
+    for (int i = 0; i < 20_000; i++) paths.add(randomPath(random));
+
+    for (String path : paths) {
+      assertEquals(expected.matches(request(path)), actual.matches(request(path)), path);
+    }
+  }
+
+  @Test
+  void matches_ShouldMatchEverythingForTheCatchAllPattern() {
+    HcPublicPathsMatcher matcher = HcPublicPathsMatcher.compile(List.of("/nav", "/**"));
+
+    assertTrue(matcher.matches(request("/anything/at/all")));
+    assertTrue(matcher.matches(request("/")));
+  }
+
+  @Test
+  void matches_ShouldUseServletPathAndPathInfo() {
+    HcPublicPathsMatcher matcher = HcPublicPathsMatcher.compile(List.of("/api/nav"));
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ctx/api/nav");
+    request.setContextPath("/ctx");
+    request.setServletPath("/api");
+    request.setPathInfo("/nav");
+    assertTrue(matcher.matches(request));
+
+    request.setPathInfo("/users");
+    assertFalse(matcher.matches(request));
+  }
+
+  private static String randomPath(Random random) {
+    StringBuilder path = new StringBuilder();
+    int segments = random.nextInt(5);
+    for (int s = 0; s < segments; s++) {
+      path.append('/').append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+    }
+    if (random.nextInt(8) == 0) path.append('/');
+    return path.toString();
+  }
+
+  private static RequestMatcher antMatchers(List<String> patterns) {
+    List<RequestMatcher> matchers = new ArrayList<>();
+    patterns.forEach(pattern -> matchers.add(new AntPathRequestMatcher(pattern)));
+    return new OrRequestMatcher(matchers);
+  }
+
+  private static MockHttpServletRequest request(String path) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+    request.setServletPath(path);
+    return request;
+  }
+}